@@ -6,6 +6,7 @@ plugins {
     id("com.gradleup.shadow") version "9.3.1"
     id("io.freefair.lombok") version "9.2.0"
     id("de.eldoria.plugin-yml.paper") version "0.8.0"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.spektrsoyuz"
@@ -28,6 +29,13 @@ dependencies {
     compileOnly("io.papermc.paper:paper-api:1.21.11-R0.1-SNAPSHOT")
     compileOnly("net.milkbowl.vault:VaultUnlockedAPI:2.19")
     compileOnly("me.clip:placeholderapi:2.12.2")
+
+    // Benchmarks run outside a server, so they need the API at runtime
+    jmh("io.papermc.paper:paper-api:1.21.11-R0.1-SNAPSHOT")
+
+    testImplementation("io.papermc.paper:paper-api:1.21.11-R0.1-SNAPSHOT")
+    testImplementation("org.junit.jupiter:junit-jupiter:5.11.4")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 java {
@@ -42,6 +50,9 @@ tasks {
         archiveClassifier.set("")
         archiveBaseName.set("economy")
     }
+    test {
+        useJUnitPlatform()
+    }
 }
 
 paper {
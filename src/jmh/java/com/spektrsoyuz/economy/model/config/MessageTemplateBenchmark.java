@@ -0,0 +1,71 @@
+package com.spektrsoyuz.economy.model.config;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark comparing a full MiniMessage parse of a message per call, as
+ * getMessage did before templates, with rendering a pre-parsed
+ * {@link MessageTemplate}. Run with {@code ./gradlew jmh}.
+ *
+ * @since 1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageTemplateBenchmark {
+
+    private static final String PREFIX = "<color:#ff7c3b>Economy</color> <white>\u00bb</white>";
+    private static final String MESSAGE = "<prefix> <gray>Sent <yellow><currency></yellow> to <white><name></white></gray>";
+    private static final String STATIC_MESSAGE = "<prefix> <red>Account not found!</red>";
+
+    private MiniMessage miniMessage;
+    private MessageTemplate template;
+    private MessageTemplate staticTemplate;
+
+    @Setup
+    public void setup() {
+        this.miniMessage = MiniMessage.miniMessage();
+        this.template = MessageTemplate.compile(MESSAGE, PREFIX, this.miniMessage);
+        this.staticTemplate = MessageTemplate.compile(STATIC_MESSAGE, PREFIX, this.miniMessage);
+    }
+
+    @Benchmark
+    public Component parsePerCall() {
+        return this.miniMessage.deserialize(
+                MESSAGE,
+                Placeholder.parsed("prefix", PREFIX),
+                Placeholder.parsed("currency", "$1,234.5 crowns"),
+                Placeholder.parsed("name", "Steve")
+        ).decorationIfAbsent(TextDecoration.ITALIC, TextDecoration.State.FALSE);
+    }
+
+    @Benchmark
+    public Component renderTemplate() {
+        return this.template.render(
+                this.miniMessage,
+                Placeholder.parsed("currency", "$1,234.5 crowns"),
+                Placeholder.parsed("name", "Steve")
+        );
+    }
+
+    @Benchmark
+    public Component parseStaticPerCall() {
+        return this.miniMessage.deserialize(STATIC_MESSAGE, Placeholder.parsed("prefix", PREFIX))
+                .decorationIfAbsent(TextDecoration.ITALIC, TextDecoration.State.FALSE);
+    }
+
+    @Benchmark
+    public Component renderStaticTemplate() {
+        return this.staticTemplate.render(this.miniMessage);
+    }
+
+}
@@ -15,6 +15,9 @@ public final class Constants {
     public static final String CONFIG_PRIMARY = "config.conf";
     public static final String CONFIG_MESSAGES = "messages.conf";
 
+    // Data paths
+    public static final String SNAPSHOT_FILE = "accounts.snapshot";
+
     // Command permissions
     public static final String PERMISSION_ADMIN = "economy.admin";
     public static final String PERMISSION_COMMAND_BALANCE_ALL = "economy.balance.all";
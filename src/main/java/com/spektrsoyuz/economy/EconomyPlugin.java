@@ -5,14 +5,19 @@ import com.spektrsoyuz.economy.controller.AccountController;
 import com.spektrsoyuz.economy.controller.ConfigController;
 import com.spektrsoyuz.economy.controller.DataController;
 import com.spektrsoyuz.economy.controller.EconomyController;
+import com.spektrsoyuz.economy.controller.JournalController;
 import com.spektrsoyuz.economy.listener.ExperienceListener;
 import com.spektrsoyuz.economy.listener.AccountListener;
 import com.spektrsoyuz.economy.listener.InventoryListener;
+import com.spektrsoyuz.economy.model.account.Money;
 import com.spektrsoyuz.economy.model.vault.EconomyImpl;
 import com.spektrsoyuz.economy.model.vault.LegacyEconomyImpl;
+import com.spektrsoyuz.economy.model.ResidencyMode;
+import com.spektrsoyuz.economy.task.AccountEvictionTask;
 import com.spektrsoyuz.economy.task.AccountQueueTask;
 import com.spektrsoyuz.economy.task.AccountSyncTask;
 import com.spektrsoyuz.economy.task.AutoWithdrawTask;
+import com.spektrsoyuz.economy.task.SnapshotTask;
 import com.spektrsoyuz.economy.task.TransactionQueueTask;
 import io.papermc.paper.command.brigadier.Commands;
 import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
@@ -36,11 +41,14 @@ public final class EconomyPlugin extends JavaPlugin {
     private final ConfigController configController = new ConfigController(this);
     private final DataController dataController = new DataController(this);
     private final EconomyController economyController = new EconomyController(this);
+    private final JournalController journalController = new JournalController(this);
 
     private final AccountQueueTask accountQueueTask = new AccountQueueTask(this);
     private final TransactionQueueTask transactionQueueTask = new TransactionQueueTask(this);
     private final AutoWithdrawTask autoWithdrawTask = new AutoWithdrawTask(this);
     private final AccountSyncTask accountSyncTask = new AccountSyncTask(this);
+    private final AccountEvictionTask accountEvictionTask = new AccountEvictionTask(this);
+    private final SnapshotTask snapshotTask = new SnapshotTask(this);
 
     private MiniMessage miniMessage;
 
@@ -50,7 +58,23 @@ public final class EconomyPlugin extends JavaPlugin {
         this.miniMessage = MiniMessage.miniMessage();
 
         this.configController.initialize();
+
+        // Fix the money scale before any amount is read
+        try {
+            Money.configure(this.configController.getCurrencyConfig().getScale());
+        } catch (final IllegalArgumentException e) {
+            this.getComponentLogger().error("Invalid currency scale, using {}", Money.getScale(), e);
+        }
+
+        // Amounts in memory are held at the startup scale, so a new one waits for a restart
+        this.configController.addReloadListener(snapshot -> {
+            if (snapshot.currency().getScale() != Money.getScale()) {
+                this.getComponentLogger().warn("Currency scale changes take effect after a restart");
+            }
+        });
+
         this.dataController.initialize();
+        this.journalController.initialize();
         this.accountController.initialize();
 
         // Check for Vault
@@ -78,9 +102,18 @@ public final class EconomyPlugin extends JavaPlugin {
     @Override
     public void onDisable() {
         // Plugin shutdown logic
-        this.dataController.close();
-
+        this.getServer().getAsyncScheduler().cancelTasks(this);
         this.getServer().getGlobalRegionScheduler().cancelTasks(this);
+
+        // Flush pending changes before closing the database, sealing the journal first so the account flush acknowledges the last segment
+        this.transactionQueueTask.shutdown();
+        this.accountQueueTask.shutdown();
+
+        // Snapshot the now clean cache for a fast start
+        this.snapshotTask.run();
+
+        this.dataController.close();
+        this.journalController.close();
     }
 
     private void registerCommands() {
@@ -137,6 +170,25 @@ public final class EconomyPlugin extends JavaPlugin {
                 30,
                 TimeUnit.SECONDS
         );
+
+        final int snapshotInterval = Math.max(1, this.configController.getStorageConfig().getSnapshot().getInterval());
+        asyncScheduler.runAtFixedRate(
+                this,
+                scheduledTask -> this.snapshotTask.run(),
+                snapshotInterval,
+                snapshotInterval,
+                TimeUnit.SECONDS
+        );
+
+        if (this.configController.getStorageConfig().getResidency().getMode() == ResidencyMode.LAZY) {
+            asyncScheduler.runAtFixedRate(
+                    this,
+                    scheduledTask -> this.accountEvictionTask.run(),
+                    60,
+                    60,
+                    TimeUnit.SECONDS
+            );
+        }
     }
 
 }
@@ -1,17 +1,18 @@
 package com.spektrsoyuz.economy;
 
+import com.spektrsoyuz.economy.model.InventoryCapacity;
+import com.spektrsoyuz.economy.model.account.Account;
 import com.spektrsoyuz.economy.model.config.CurrencyConfig;
-import org.bukkit.Material;
+import com.spektrsoyuz.economy.model.config.DenominationEngine;
 import org.bukkit.Sound;
+import org.bukkit.command.BlockCommandSender;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Class for plugin-wide utility methods.
@@ -20,20 +21,49 @@ import java.util.Map;
  */
 public final class EconomyUtils {
 
-    // Returns a formatted currency string
-    public static String format(final EconomyPlugin plugin, BigDecimal amount) {
-        final CurrencyConfig config = plugin.getConfigController().getCurrencyConfig();
+    // Returns a formatted currency string for an amount in minor units
+    public static String format(final EconomyPlugin plugin, final long amount) {
+        return plugin.getConfigController().getCurrencyConfig().getFormatter().format(amount);
+    }
 
-        final DecimalFormat df = new DecimalFormat("#,##0.##");
-        df.setRoundingMode(RoundingMode.HALF_UP);
+    // Runs a task on the region thread that owns the player, immediately if already on it
+    public static void runForPlayer(final EconomyPlugin plugin, final Player player, final Runnable task) {
+        if (plugin.getServer().isOwnedByCurrentRegion(player)) {
+            task.run();
+            return;
+        }
 
-        final String formattedAmount = df.format(amount);
+        player.getScheduler().run(plugin, scheduledTask -> task.run(), null);
+    }
 
-        final String label = (amount.compareTo(BigDecimal.ONE) == 0)
-                ? config.getNameSingular()
-                : config.getNamePlural();
+    // Runs a task on the thread that owns a command sender, immediately if already on it
+    public static void runForSender(final EconomyPlugin plugin, final CommandSender sender, final Runnable task) {
+        if (sender instanceof Player player) {
+            runForPlayer(plugin, player, task);
+        } else if (sender instanceof Entity entity) {
+            entity.getScheduler().run(plugin, scheduledTask -> task.run(), null);
+        } else if (sender instanceof BlockCommandSender block) {
+            plugin.getServer().getRegionScheduler().execute(plugin, block.getBlock().getLocation(), task);
+        } else if (plugin.getServer().isGlobalTickThread()) {
+            task.run();
+        } else {
+            plugin.getServer().getGlobalRegionScheduler().execute(plugin, task);
+        }
+    }
 
-        return String.format("%s%s %s", config.getSymbol(), formattedAmount, label);
+    // Looks up an account by name without blocking, then hands it to a callback on the sender's thread
+    public static void withAccount(
+            final EconomyPlugin plugin,
+            final CommandSender sender,
+            final String name,
+            final Consumer<Optional<Account>> callback
+    ) {
+        plugin.getAccountController().loadAccount(name)
+                .thenAccept(account -> runForSender(plugin, sender, () -> callback.accept(account)))
+                .exceptionally(ex -> {
+                    plugin.getComponentLogger().error("Error looking up account '{}'", name, ex);
+                    return null;
+                });
     }
 
     // Plays an error sound for a player
@@ -41,34 +71,25 @@ public final class EconomyUtils {
         player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_IRON_XYLOPHONE, 1.0f, 0.5f);
     }
 
-    // Distributes physical items to the player based on value
+    // Distributes physical items to the player based on value, in as few slots as will fit
     public static void distributeItems(final Player player, final CurrencyConfig config, final int totalValue) {
-        int remainingToGive = totalValue;
-
-        // Get currency items sorted by value descending
-        final List<Map.Entry<String, Integer>> sortedItems = new ArrayList<>(config.getItems().entrySet());
-        sortedItems.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
-
-        for (final Map.Entry<String, Integer> entry : sortedItems) {
-            if (remainingToGive <= 0) break;
-
-            final Material material = Material.matchMaterial(entry.getKey());
-            if (material == null) continue;
-
-            final int itemValue = entry.getValue();
-            final int countToGive = remainingToGive / itemValue;
-
-            if (countToGive > 0) {
-                final ItemStack stack = new ItemStack(material, countToGive);
-
-                // Give items to player
-                player.getInventory().addItem(stack).values().forEach(leftover -> {
-                    // Drop remaining items
-                    player.getWorld().dropItem(player.getLocation(), leftover);
-                });
-
-                remainingToGive %= itemValue;
-            }
+        final DenominationEngine engine = config.getDenominationEngine();
+        final InventoryCapacity capacity = InventoryCapacity.scan(
+                player.getInventory().getStorageContents(),
+                config.getItemValues().getByDensity()
+        );
+
+        // Prefer a combination that fits, then the smallest one, then as much as can be made
+        DenominationEngine.Combination combination = engine.fit(totalValue, capacity);
+        if (combination == null) combination = engine.change(totalValue);
+        if (combination == null) combination = engine.fill(totalValue, null);
+
+        for (final ItemStack stack : combination.toStacks()) {
+            // Give items to player
+            player.getInventory().addItem(stack).values().forEach(leftover -> {
+                // Drop remaining items
+                player.getWorld().dropItem(player.getLocation(), leftover);
+            });
         }
     }
 
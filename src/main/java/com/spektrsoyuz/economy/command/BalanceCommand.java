@@ -7,6 +7,7 @@ import com.spektrsoyuz.economy.Constants;
 import com.spektrsoyuz.economy.EconomyPlugin;
 import com.spektrsoyuz.economy.EconomyUtils;
 import com.spektrsoyuz.economy.command.suggest.PlayerAccountSuggestionProvider;
+import com.spektrsoyuz.economy.model.account.AccountKind;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
 import lombok.RequiredArgsConstructor;
@@ -84,11 +85,11 @@ public final class BalanceCommand {
         final CommandSender sender = ctx.getSource().getSender();
         final String accountName = ctx.getArgument("name", String.class);
 
-        this.plugin.getAccountController().getAccount(accountName).ifPresentOrElse(account -> {
+        EconomyUtils.withAccount(this.plugin, sender, accountName, found -> found.ifPresentOrElse(account -> {
             // Account found for player
             final String currency = EconomyUtils.format(this.plugin, account.getBalance());
 
-            final boolean isPlayer = this.plugin.getServer().getOfflinePlayer(account.getId()).hasPlayedBefore();
+            final boolean isPlayer = account.getKind() == AccountKind.PLAYER;
 
             // Check if player is allowed to view balance
             if (!(isPlayer) && !(sender.hasPermission(Constants.PERMISSION_COMMAND_BALANCE_ALL))) {
@@ -112,7 +113,7 @@ public final class BalanceCommand {
                     "error-account-not-found",
                     this.plugin.getMiniMessage()
             ));
-        });
+        }));
 
         return Command.SINGLE_SUCCESS;
     }
@@ -1,10 +1,14 @@
 package com.spektrsoyuz.economy.command;
 
 import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.spektrsoyuz.economy.Constants;
 import com.spektrsoyuz.economy.EconomyPlugin;
 import com.spektrsoyuz.economy.EconomyUtils;
+import com.spektrsoyuz.economy.controller.AccountController;
+import com.spektrsoyuz.economy.model.account.Account;
+import com.spektrsoyuz.economy.model.account.Leaderboard;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
 import lombok.RequiredArgsConstructor;
@@ -12,9 +16,14 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.JoinConfiguration;
 import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Model class for the /balancetop command.
@@ -24,8 +33,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public final class BalanceTopCommand {
 
+    // Number of accounts shown per page
+    private static final int PAGE_SIZE = 10;
+
     private final EconomyPlugin plugin;
 
+    // Rendered pages for one leaderboard version and number of complete standings
+    private volatile PageCache pageCache = PageCache.EMPTY;
+
     /**
      * Registers the command.
      *
@@ -34,53 +49,163 @@ public final class BalanceTopCommand {
     public void register(final Commands registrar) {
         final var command = Commands.literal("balancetop")
                 .requires(stack -> stack.getSender().hasPermission(Constants.PERMISSION_COMMAND_BALANCE))
-                .executes(this::execute)
+                .then(Commands.argument("page", IntegerArgumentType.integer(1))
+                        .executes(ctx -> this.execute(ctx, IntegerArgumentType.getInteger(ctx, "page"))))
+                .executes(ctx -> this.execute(ctx, 1))
                 .build();
 
         registrar.register(command, "View the account leaderboard", List.of("baltop"));
+
+        // Pages hold formatted amounts and messages, so drop them when the config changes
+        this.plugin.getConfigController().addReloadListener(snapshot -> this.pageCache = PageCache.EMPTY);
     }
 
     // Executes the command
-    private int execute(final CommandContext<CommandSourceStack> ctx) {
+    private int execute(final CommandContext<CommandSourceStack> ctx, final int page) {
         final CommandSender sender = ctx.getSource().getSender();
+        final Leaderboard leaderboard = this.plugin.getAccountController().getLeaderboard();
+
+        final int pages = pageCount(leaderboard);
+        if (page > pages) {
+            sender.sendMessage(this.plugin.getConfigController().getMessage(
+                    "error-page-not-found",
+                    this.plugin.getMiniMessage()
+            ));
+            return 0;
+        }
+
+        // Send message to sender
+        sender.sendMessage(this.getPage(leaderboard, page));
 
-        final List<Component> components = this.plugin.getAccountController().getTopAccounts()
-                .stream()
-                .map(account -> {
-                    final String name = account.getDisplayName();
-                    final String currency = EconomyUtils.format(this.plugin, account.getBalance());
-
-                    // Create component for account
-                    return this.plugin.getConfigController().getMessage(
-                            "command-balancetop-body",
-                            this.plugin.getMiniMessage(),
-                            Placeholder.parsed("name", name),
-                            Placeholder.parsed("currency", currency)
-                    );
-                })
-                .toList();
+        if (sender instanceof Player player) {
+            this.sendRank(leaderboard, player);
+        }
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    /**
+     * Gets a rendered page of the leaderboard. Pages are rendered once per
+     * leaderboard version and number of complete standings, which sets the
+     * page count in the header, reading only the standings on the page.
+     *
+     * @param leaderboard The leaderboard.
+     * @param page        The 1-based page number.
+     * @return The rendered page.
+     */
+    private Component getPage(final Leaderboard leaderboard, final int page) {
+        final long version = leaderboard.getVersion();
+        final int complete = leaderboard.completeSize();
+
+        PageCache cache = this.pageCache;
+        if (cache.version() != version || cache.complete() != complete) {
+            cache = new PageCache(version, complete, new ConcurrentHashMap<>());
+            this.pageCache = cache;
+        }
+
+        return cache.pages().computeIfAbsent(page, key -> this.renderPage(leaderboard, key));
+    }
+
+    // Renders a page of the leaderboard
+    private Component renderPage(final Leaderboard leaderboard, final int page) {
+        final int firstRank = (page - 1) * PAGE_SIZE + 1;
+        final int pages = pageCount(leaderboard);
+        final int last = Math.min(firstRank + PAGE_SIZE - 1, leaderboard.completeSize());
+        final List<Leaderboard.Standing> standings = leaderboard.range(firstRank, last - firstRank + 1);
 
         // Build final message
-        final List<Component> finalComponents = new ArrayList<>();
-        final int limit = Math.min(components.size(), 10);
-        final List<Component> reducedComponents = components.subList(0, limit);
+        final List<Component> components = new ArrayList<>(standings.size() + 2);
 
-        finalComponents.add(this.plugin.getConfigController().getMessage(
+        components.add(this.plugin.getConfigController().getMessage(
                 "command-balancetop-header",
                 this.plugin.getMiniMessage(),
-                Placeholder.parsed("count", String.valueOf(reducedComponents.size()))
+                Placeholder.parsed("count", String.valueOf(standings.size())),
+                Placeholder.parsed("page", String.valueOf(page)),
+                Placeholder.parsed("pages", String.valueOf(pages))
         ));
-        finalComponents.addAll(reducedComponents);
-        finalComponents.add(this.plugin.getConfigController().getMessage(
+
+        for (int i = 0; i < standings.size(); i++) {
+            final Leaderboard.Standing standing = standings.get(i);
+
+            // Create component for account
+            components.add(this.plugin.getConfigController().getMessage(
+                    "command-balancetop-body",
+                    this.plugin.getMiniMessage(),
+                    Placeholder.parsed("rank", String.valueOf(firstRank + i)),
+                    Placeholder.parsed("name", standing.displayName()),
+                    Placeholder.parsed("currency", EconomyUtils.format(this.plugin, standing.balance()))
+            ));
+        }
+
+        components.add(this.plugin.getConfigController().getMessage(
                 "command-balancetop-footer",
                 this.plugin.getMiniMessage()
         ));
 
-        // Send message to sender
-        final Component message = Component.join(JoinConfiguration.newlines(), finalComponents);
-        sender.sendMessage(message);
+        return Component.join(JoinConfiguration.newlines(), components);
+    }
+
+    /**
+     * Sends a player their own rank. In lazy residency mode a player beyond
+     * the standings known to match the database, or missing from the
+     * leaderboard altogether, is ranked by the database off the tick thread
+     * instead.
+     *
+     * @param leaderboard The leaderboard.
+     * @param player      The player.
+     */
+    private void sendRank(final Leaderboard leaderboard, final Player player) {
+        final AccountController accountController = this.plugin.getAccountController();
+        final Optional<Account> account = accountController.getAccount(player);
+        final long balance = account.map(Account::getBalance).orElse(0L);
+        final OptionalInt rank = leaderboard.rank(player.getUniqueId());
+
+        if (rank.isPresent() && rank.getAsInt() <= leaderboard.completeSize()) {
+            player.sendMessage(this.renderRank(rank.getAsInt(), balance));
+            return;
+        }
+
+        // Resident accounts only join a lazy leaderboard once their balance changes
+        if (!accountController.isLazy() || account.filter(accountController::isRanked).isEmpty()) {
+            player.sendMessage(this.renderUnranked());
+            return;
+        }
+
+        this.plugin.getDataController().countPlayerAccountsAbove(balance).thenAccept(above ->
+                EconomyUtils.runForPlayer(this.plugin, player, () -> player.sendMessage(above < 0
+                        ? this.renderUnranked()
+                        : this.renderRank(above + 1, balance)))
+        );
+    }
+
+    // Renders the line showing a player's own rank
+    private Component renderRank(final int rank, final long balance) {
+        return this.plugin.getConfigController().getMessage(
+                "command-balancetop-rank",
+                this.plugin.getMiniMessage(),
+                Placeholder.parsed("rank", String.valueOf(rank)),
+                Placeholder.parsed("currency", EconomyUtils.format(this.plugin, balance))
+        );
+    }
+
+    // Renders the line for a player who is not on the leaderboard
+    private Component renderUnranked() {
+        return this.plugin.getConfigController().getMessage(
+                "command-balancetop-unranked",
+                this.plugin.getMiniMessage()
+        );
+    }
+
+    // Gets the number of pages, covering only the standings known to match the database
+    private static int pageCount(final Leaderboard leaderboard) {
+        return Math.max(1, (leaderboard.completeSize() + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+
+    // Rendered pages and the leaderboard version and complete size they were rendered from
+    private record PageCache(long version, int complete, Map<Integer, Component> pages) {
+
+        private static final PageCache EMPTY = new PageCache(-1, -1, Map.of());
 
-        return Command.SINGLE_SUCCESS;
     }
 
 }
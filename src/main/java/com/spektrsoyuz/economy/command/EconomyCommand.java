@@ -9,7 +9,9 @@ import com.spektrsoyuz.economy.EconomyPlugin;
 import com.spektrsoyuz.economy.EconomyUtils;
 import com.spektrsoyuz.economy.command.suggest.AccountSuggestionProvider;
 import com.spektrsoyuz.economy.model.account.Account;
+import com.spektrsoyuz.economy.model.account.Money;
 import com.spektrsoyuz.economy.model.account.Transactor;
+import com.spektrsoyuz.economy.model.data.PersistenceExecutor;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
 import lombok.RequiredArgsConstructor;
@@ -17,8 +19,8 @@ import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
-import java.math.BigDecimal;
 import java.util.List;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 /**
@@ -78,6 +80,10 @@ public final class EconomyCommand {
                         .then(Commands.argument("amount", DoubleArgumentType.doubleArg(0))
                                 .executes(this::set)));
 
+        // /economy status
+        final var status = Commands.literal("status")
+                .executes(this::status);
+
         // /economy subtract <name> <amount>
         final var subtract = Commands.literal("subtract")
                 .then(Commands.argument("name", StringArgumentType.word())
@@ -101,6 +107,7 @@ public final class EconomyCommand {
                 .then(reload)
                 .then(reset)
                 .then(set)
+                .then(status)
                 .then(subtract)
                 .then(unfreeze)
                 .executes(this::execute)
@@ -128,15 +135,27 @@ public final class EconomyCommand {
     private int add(final CommandContext<CommandSourceStack> ctx) {
         final CommandSender sender = ctx.getSource().getSender();
         final String accountName = ctx.getArgument("name", String.class);
-        final double amount = DoubleArgumentType.getDouble(ctx, "amount");
-        final BigDecimal amountBD = BigDecimal.valueOf(amount);
+        final OptionalLong amount = Money.ofExact(DoubleArgumentType.getDouble(ctx, "amount"));
+
+        // Check if the amount can be held exactly
+        if (amount.isEmpty()) {
+            this.sendInvalidAmount(sender);
+            return 0;
+        }
+        final long amountUnits = amount.getAsLong();
 
         // Check if account exists
-        this.plugin.getAccountController().getAccount(accountName).ifPresentOrElse(account -> {
+        EconomyUtils.withAccount(this.plugin, sender, accountName, found -> found.ifPresentOrElse(account -> {
             final String symbol = this.plugin.getConfigController().getCurrencyConfig().getSymbol();
 
-            // Perform the transaction
-            account.addBalance(amountBD, Transactor.SERVER);
+            // Perform the transaction, refused if frozen or past the balance limit
+            if (!account.addBalance(amountUnits, Transactor.SERVER)) {
+                sender.sendMessage(this.plugin.getConfigController().getMessage(
+                        "error-transaction-failed",
+                        this.plugin.getMiniMessage()
+                ));
+                return;
+            }
             final String currency = EconomyUtils.format(this.plugin, account.getBalance());
 
             // Send message to sender
@@ -153,7 +172,7 @@ public final class EconomyCommand {
                     "error-account-not-found",
                     this.plugin.getMiniMessage()
             ));
-        });
+        }));
 
         return Command.SINGLE_SUCCESS;
     }
@@ -192,7 +211,7 @@ public final class EconomyCommand {
         final String accountName = ctx.getArgument("name", String.class);
 
         // Check if account exists
-        this.plugin.getAccountController().getAccount(accountName).ifPresentOrElse(account -> {
+        EconomyUtils.withAccount(this.plugin, sender, accountName, found -> found.ifPresentOrElse(account -> {
             // Delete account
             this.plugin.getAccountController().deleteAccount(account.getId());
 
@@ -208,7 +227,7 @@ public final class EconomyCommand {
                     "error-account-not-found",
                     this.plugin.getMiniMessage()
             ));
-        });
+        }));
 
         return Command.SINGLE_SUCCESS;
     }
@@ -219,7 +238,7 @@ public final class EconomyCommand {
         final String accountName = ctx.getArgument("name", String.class);
 
         // Check if account exists
-        this.plugin.getAccountController().getAccount(accountName).ifPresentOrElse(account -> {
+        EconomyUtils.withAccount(this.plugin, sender, accountName, found -> found.ifPresentOrElse(account -> {
             // Freeze the account
             account.freeze();
 
@@ -235,7 +254,7 @@ public final class EconomyCommand {
                     "error-account-not-found",
                     this.plugin.getMiniMessage()
             ));
-        });
+        }));
 
         return Command.SINGLE_SUCCESS;
     }
@@ -273,11 +292,11 @@ public final class EconomyCommand {
         final String accountName = ctx.getArgument("name", String.class);
 
         // Check if account exists
-        this.plugin.getAccountController().getAccount(accountName).ifPresentOrElse(account -> {
+        EconomyUtils.withAccount(this.plugin, sender, accountName, found -> found.ifPresentOrElse(account -> {
             // Reset the account
             account.setFrozen(false);
 
-            final boolean success = account.setBalance(BigDecimal.ZERO, Transactor.SERVER);
+            final boolean success = account.setBalance(0, Transactor.SERVER);
 
             // Send message to sender
             sender.sendMessage(this.plugin.getConfigController().getMessage(
@@ -291,7 +310,7 @@ public final class EconomyCommand {
                     "error-account-not-found",
                     this.plugin.getMiniMessage()
             ));
-        });
+        }));
 
         return Command.SINGLE_SUCCESS;
     }
@@ -300,15 +319,27 @@ public final class EconomyCommand {
     private int set(final CommandContext<CommandSourceStack> ctx) {
         final CommandSender sender = ctx.getSource().getSender();
         final String accountName = ctx.getArgument("name", String.class);
-        final double amount = DoubleArgumentType.getDouble(ctx, "amount");
-        final BigDecimal amountBD = BigDecimal.valueOf(amount);
+        final OptionalLong amount = Money.ofExact(DoubleArgumentType.getDouble(ctx, "amount"));
+
+        // Check if the amount can be held exactly
+        if (amount.isEmpty()) {
+            this.sendInvalidAmount(sender);
+            return 0;
+        }
+        final long amountUnits = amount.getAsLong();
 
         // Check if account exists
-        this.plugin.getAccountController().getAccount(accountName).ifPresentOrElse(account -> {
+        EconomyUtils.withAccount(this.plugin, sender, accountName, found -> found.ifPresentOrElse(account -> {
             final String symbol = this.plugin.getConfigController().getCurrencyConfig().getSymbol();
 
-            // Perform the transaction
-            account.setBalance(amountBD, Transactor.SERVER);
+            // Perform the transaction, refused if frozen or past the balance limit
+            if (!account.setBalance(amountUnits, Transactor.SERVER)) {
+                sender.sendMessage(this.plugin.getConfigController().getMessage(
+                        "error-transaction-failed",
+                        this.plugin.getMiniMessage()
+                ));
+                return;
+            }
             final String currency = EconomyUtils.format(this.plugin, account.getBalance());
 
             // Send message to sender
@@ -325,7 +356,25 @@ public final class EconomyCommand {
                     "error-account-not-found",
                     this.plugin.getMiniMessage()
             ));
-        });
+        }));
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    // Executes the 'status' sub-command
+    private int status(final CommandContext<CommandSourceStack> ctx) {
+        final CommandSender sender = ctx.getSource().getSender();
+        final PersistenceExecutor executor = this.plugin.getDataController().getExecutor();
+
+        // Send message to sender
+        sender.sendMessage(this.plugin.getConfigController().getMessage(
+                "command-economy-status",
+                this.plugin.getMiniMessage(),
+                Placeholder.parsed("active", String.valueOf(executor.getActiveCount())),
+                Placeholder.parsed("queued", String.valueOf(executor.getQueueDepth())),
+                Placeholder.parsed("caller-runs", String.valueOf(executor.getCallerRunsCount())),
+                Placeholder.parsed("rejected", String.valueOf(executor.getRejectedCount()))
+        ));
 
         return Command.SINGLE_SUCCESS;
     }
@@ -334,15 +383,27 @@ public final class EconomyCommand {
     private int subtract(final CommandContext<CommandSourceStack> ctx) {
         final CommandSender sender = ctx.getSource().getSender();
         final String accountName = ctx.getArgument("name", String.class);
-        final double amount = DoubleArgumentType.getDouble(ctx, "amount");
-        final BigDecimal amountBD = BigDecimal.valueOf(amount);
+        final OptionalLong amount = Money.ofExact(DoubleArgumentType.getDouble(ctx, "amount"));
+
+        // Check if the amount can be held exactly
+        if (amount.isEmpty()) {
+            this.sendInvalidAmount(sender);
+            return 0;
+        }
+        final long amountUnits = amount.getAsLong();
 
         // Check if account exists
-        this.plugin.getAccountController().getAccount(accountName).ifPresentOrElse(account -> {
+        EconomyUtils.withAccount(this.plugin, sender, accountName, found -> found.ifPresentOrElse(account -> {
             final String symbol = this.plugin.getConfigController().getCurrencyConfig().getSymbol();
 
-            // Perform the transaction
-            account.subtractBalance(amountBD, Transactor.SERVER);
+            // Perform the transaction, refused if frozen or past the balance limit
+            if (!account.subtractBalance(amountUnits, Transactor.SERVER)) {
+                sender.sendMessage(this.plugin.getConfigController().getMessage(
+                        "error-transaction-failed",
+                        this.plugin.getMiniMessage()
+                ));
+                return;
+            }
             final String currency = EconomyUtils.format(this.plugin, account.getBalance());
 
             // Send message to sender
@@ -359,18 +420,27 @@ public final class EconomyCommand {
                     "error-account-not-found",
                     this.plugin.getMiniMessage()
             ));
-        });
+        }));
 
         return Command.SINGLE_SUCCESS;
     }
 
+    // Tells the sender an amount was rejected
+    private void sendInvalidAmount(final CommandSender sender) {
+        sender.sendMessage(this.plugin.getConfigController().getMessage(
+                "error-invalid-amount",
+                this.plugin.getMiniMessage(),
+                Placeholder.parsed("currency", EconomyUtils.format(this.plugin, Money.maxBalance()))
+        ));
+    }
+
     // Executes the 'unfreeze' sub-command
     private int unfreeze(final CommandContext<CommandSourceStack> ctx) {
         final CommandSender sender = ctx.getSource().getSender();
         final String accountName = ctx.getArgument("name", String.class);
 
         // Check if account exists
-        this.plugin.getAccountController().getAccount(accountName).ifPresentOrElse(account -> {
+        EconomyUtils.withAccount(this.plugin, sender, accountName, found -> found.ifPresentOrElse(account -> {
             // Unfreeze the account
             account.unfreeze();
 
@@ -386,7 +456,7 @@ public final class EconomyCommand {
                     "error-account-not-found",
                     this.plugin.getMiniMessage()
             ));
-        });
+        }));
 
         return Command.SINGLE_SUCCESS;
     }
@@ -9,7 +9,9 @@ import com.spektrsoyuz.economy.EconomyPlugin;
 import com.spektrsoyuz.economy.EconomyUtils;
 import com.spektrsoyuz.economy.command.suggest.PlayerAccountSuggestionProvider;
 import com.spektrsoyuz.economy.model.account.Account;
+import com.spektrsoyuz.economy.model.account.Money;
 import com.spektrsoyuz.economy.model.account.Transactor;
+import com.spektrsoyuz.economy.model.account.TransferResult;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
 import io.papermc.paper.command.brigadier.argument.ArgumentTypes;
@@ -21,7 +23,6 @@ import org.bukkit.Sound;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
-import java.math.BigDecimal;
 
 /**
  * Model class for the /pay command.
@@ -62,7 +63,7 @@ public final class PayCommand {
 
         final var targetResolver = ctx.getArgument("player", PlayerSelectorArgumentResolver.class);
         final Player target = targetResolver.resolve(source).getFirst();
-        final BigDecimal amount = BigDecimal.valueOf(ctx.getArgument("amount", Integer.class));
+        final long amount = Money.ofWhole(ctx.getArgument("amount", Integer.class));
 
         // Check if the sender is the target
         if (sender.getUniqueId().equals(target.getUniqueId())) {
@@ -82,8 +83,11 @@ public final class PayCommand {
         final Account senderAccount = senderOpt.get();
         final Account targetAccount = targetOpt.get();
 
+        // Move the amount between both accounts as one transfer
+        final TransferResult result = senderAccount.transfer(targetAccount, amount, Transactor.PLAYER);
+
         // Check if sender has enough balance
-        if (senderAccount.getBalance().compareTo(amount) < 0) {
+        if (result == TransferResult.INSUFFICIENT_BALANCE) {
             this.sendMessage(
                     sender,
                     "error-not-enough-balance",
@@ -92,16 +96,7 @@ public final class PayCommand {
             return 0;
         }
 
-        // Subtract amount from sender account
-        if (!senderAccount.subtractBalance(amount, Transactor.PLAYER)) {
-            this.handleError(sender);
-            return 0;
-        }
-
-        // Add amount to target account
-        if (!targetAccount.addBalance(amount, Transactor.PLAYER)) {
-            // Rollback transaction if failed
-            senderAccount.addBalance(amount, Transactor.PLAYER);
+        if (result != TransferResult.SUCCESS) {
             this.handleError(sender);
             return 0;
         }
@@ -5,6 +5,7 @@ import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.spektrsoyuz.economy.Constants;
 import com.spektrsoyuz.economy.EconomyPlugin;
+import com.spektrsoyuz.economy.model.account.Money;
 import com.spektrsoyuz.economy.model.config.CurrencyConfig;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
@@ -13,8 +14,6 @@ import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
-import java.math.BigDecimal;
-
 /**
  * Model class for the /withdraw command.
  *
@@ -61,10 +60,10 @@ public final class WithdrawCommand {
         final CurrencyConfig config = this.plugin.getConfigController().getCurrencyConfig();
 
         return this.plugin.getAccountController().getAccount(player).map(account -> {
-            final BigDecimal balance = account.getBalance();
+            final long balance = account.getBalance();
 
             // Check account balance
-            if (balance.compareTo(BigDecimal.ONE) < 0) {
+            if (balance < Money.ofWhole(1)) {
                 player.sendMessage(this.plugin.getConfigController().getMessage(
                         "error-not-enough-balance",
                         this.plugin.getMiniMessage(),
@@ -74,7 +73,7 @@ public final class WithdrawCommand {
             }
 
             // Process transaction
-            return this.plugin.getEconomyController().handleWithdrawal(player, balance.intValue(), config);
+            return this.plugin.getEconomyController().handleWithdrawal(player, (int) Money.toWhole(balance), config);
         }).orElseGet(() -> {
             // Account not found
             player.sendMessage(this.plugin.getConfigController().getMessage(
@@ -0,0 +1,56 @@
+package com.spektrsoyuz.economy.command.suggest;
+
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import com.spektrsoyuz.economy.EconomyPlugin;
+import com.spektrsoyuz.economy.model.account.AccountNameIndex;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * Utility class for suggesting account names from the name index.
+ *
+ * @since 1.1.0
+ */
+final class AccountNameSuggestions {
+
+    private AccountNameSuggestions() {
+    }
+
+    /**
+     * Suggests the indexed account names starting with the remaining input,
+     * up to the configured limit. The index is walked on the async scheduler
+     * so large account tables never hold up the thread asking.
+     *
+     * @param plugin  The plugin instance.
+     * @param builder The suggestions builder.
+     * @param filter  The filter names must pass to be suggested.
+     * @return A {@link CompletableFuture} containing the suggestions.
+     */
+    static CompletableFuture<Suggestions> suggest(
+            final EconomyPlugin plugin,
+            final SuggestionsBuilder builder,
+            final Predicate<AccountNameIndex.Entry> filter
+    ) {
+        final String prefix = builder.getRemaining().toLowerCase(Locale.ROOT);
+        final int limit = plugin.getConfigController().getOptionsConfig().getSuggestionLimit();
+        final CompletableFuture<Suggestions> future = new CompletableFuture<>();
+
+        plugin.getServer().getAsyncScheduler().runNow(plugin, task -> {
+            try {
+                plugin.getAccountController().getNameIndex()
+                        .complete(prefix, limit, filter)
+                        .forEach(entry -> builder.suggest(entry.name()));
+
+                future.complete(builder.build());
+            } catch (final RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        return future;
+    }
+
+}
@@ -23,11 +23,7 @@ public final class AccountSuggestionProvider implements SuggestionProvider<Comma
     @Override
     public CompletableFuture<Suggestions> getSuggestions(final CommandContext<CommandSourceStack> ctx, final SuggestionsBuilder builder) {
         // Suggest account names
-        this.plugin.getAccountController().getAccounts().values().stream()
-                .filter(account -> account.getName().toLowerCase().startsWith(builder.getRemainingLowerCase()))
-                .forEach(account -> builder.suggest(account.getName()));
-
-        return builder.buildFuture();
+        return AccountNameSuggestions.suggest(this.plugin, builder, entry -> true);
     }
 
 }
@@ -5,6 +5,7 @@ import com.mojang.brigadier.suggestion.SuggestionProvider;
 import com.mojang.brigadier.suggestion.Suggestions;
 import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import com.spektrsoyuz.economy.EconomyPlugin;
+import com.spektrsoyuz.economy.model.account.AccountKind;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import lombok.RequiredArgsConstructor;
 import org.bukkit.command.CommandSender;
@@ -25,14 +26,11 @@ public final class PlayerAccountSuggestionProvider implements SuggestionProvider
     public CompletableFuture<Suggestions> getSuggestions(final CommandContext<CommandSourceStack> ctx, final SuggestionsBuilder builder) {
         final CommandSender sender = ctx.getSource().getSender();
 
-        // Suggest account names
-        this.plugin.getAccountController().getAccounts().values().stream()
-                .filter(account -> account.getName().toLowerCase().startsWith(builder.getRemainingLowerCase()))
-                .filter(account -> this.plugin.getServer().getOfflinePlayer(account.getId()).hasPlayedBefore())
-                .filter(account -> !(sender.getName().equalsIgnoreCase(account.getName())))
-                .forEach(account -> builder.suggest(account.getName()));
-
-        return builder.buildFuture();
+        // Suggest player account names
+        return AccountNameSuggestions.suggest(this.plugin, builder, entry ->
+                !sender.getName().equalsIgnoreCase(entry.name())
+                        && entry.kind() == AccountKind.PLAYER
+        );
     }
 
 }
@@ -1,17 +1,32 @@
 package com.spektrsoyuz.economy.controller;
 
+import com.spektrsoyuz.economy.Constants;
 import com.spektrsoyuz.economy.EconomyPlugin;
+import com.spektrsoyuz.economy.EconomyUtils;
+import com.spektrsoyuz.economy.model.ResidencyMode;
 import com.spektrsoyuz.economy.model.account.Account;
+import com.spektrsoyuz.economy.model.account.AccountKind;
+import com.spektrsoyuz.economy.model.account.AccountNameIndex;
+import com.spektrsoyuz.economy.model.account.Leaderboard;
+import com.spektrsoyuz.economy.model.account.Money;
+import com.spektrsoyuz.economy.model.account.Transaction;
+import com.spektrsoyuz.economy.model.account.Transactor;
+import com.spektrsoyuz.economy.model.account.TransferResult;
 import com.spektrsoyuz.economy.model.config.CurrencyConfig;
+import com.spektrsoyuz.economy.model.data.AccountSnapshot;
+import com.spektrsoyuz.economy.model.data.JournalEntry;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller class for economy accounts.
@@ -22,22 +37,40 @@ import java.util.concurrent.ConcurrentHashMap;
 @RequiredArgsConstructor
 public final class AccountController {
 
+    // Log loading progress every this many accounts
+    private static final int LOAD_PROGRESS_INTERVAL = 50_000;
+
     private final EconomyPlugin plugin;
 
-    private final Map<UUID, Account> accounts = new ConcurrentHashMap<>();
+    private Map<UUID, Account> accounts = new ConcurrentHashMap<>();
     private final Map<UUID, Account> onlineAccounts = new ConcurrentHashMap<>();
-    private final List<Account> topAccounts = new ArrayList<>();
-    private final Map<UUID, Long> soundCooldowns = new HashMap<>();
+    private final AccountNameIndex nameIndex = new AccountNameIndex();
+    private final Leaderboard leaderboard = new Leaderboard(this::isRanked);
+    private final Map<UUID, Long> soundCooldowns = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletableFuture<Optional<Account>>> loading = new ConcurrentHashMap<>();
+
+    private boolean lazy;
+    private volatile boolean initialized;
 
     /**
      * Initializes the controller.
      */
     public void initialize() {
-        this.plugin.getComponentLogger().info("Loading accounts into cache");
+        this.lazy = this.plugin.getConfigController().getStorageConfig().getResidency().getMode() == ResidencyMode.LAZY;
 
         // Load accounts
-        this.loadAccounts().join();
-        this.plugin.getComponentLogger().info("Loaded {} accounts into cache", this.accounts.size());
+        if (this.lazy) {
+            this.plugin.getComponentLogger().info("Lazy residency mode enabled, accounts are loaded on demand");
+
+            // Nothing on the leaderboard matches the database until the top rows are read
+            this.leaderboard.setComplete(0);
+        } else {
+            this.loadAccounts();
+        }
+
+        this.replayJournal();
+        this.classifyAccounts();
+        this.initialized = true;
     }
 
     /**
@@ -47,7 +80,10 @@ public final class AccountController {
      * @return An {@link Optional} containing the account if found.
      */
     public Optional<Account> getAccount(final UUID id) {
-        return Optional.ofNullable(this.accounts.get(id));
+        final Account account = this.accounts.get(id);
+        if (account != null) account.touch();
+
+        return Optional.ofNullable(account);
     }
 
     /**
@@ -61,16 +97,197 @@ public final class AccountController {
     }
 
     /**
-     * Retrieves an account from the global cache by the account name.
+     * Retrieves an account from the global cache by the account name,
+     * ignoring case.
      *
      * @param name The name associated with the account.
      * @return An {@link Optional} containing the account if found.
      */
     public Optional<Account> getAccount(final String name) {
+        return this.nameIndex.get(name).flatMap(this::getAccount);
+    }
+
+    /**
+     * Retrieves an account by its unique ID, reading it from the database
+     * when it is not in memory. In lazy residency mode a cache miss blocks
+     * the calling thread until the read completes.
+     * <p>
+     * This exists only for the Vault API, whose methods return their result
+     * synchronously and so force a blocking lookup. Everything else should
+     * use {@link #loadAccount(UUID)} and continue once the future completes.
+     *
+     * @param id The UUID of the account.
+     * @return An {@link Optional} containing the account if found.
+     */
+    public Optional<Account> getOrLoadAccount(final UUID id) {
+        final Optional<Account> account = this.getAccount(id);
+        if (account.isPresent() || !this.lazy) return account;
+
+        return this.loadAccount(id).join();
+    }
+
+    /**
+     * Retrieves an account by its name, reading it from the database when
+     * it is not in memory. In lazy residency mode a cache miss blocks the
+     * calling thread until the read completes.
+     * <p>
+     * This exists only for the Vault API, whose methods return their result
+     * synchronously and so force a blocking lookup. Everything else should
+     * use {@link #loadAccount(String)} and continue once the future completes.
+     *
+     * @param name The name associated with the account.
+     * @return An {@link Optional} containing the account if found.
+     */
+    public Optional<Account> getOrLoadAccount(final String name) {
+        return this.loadAccount(name).join();
+    }
+
+    /**
+     * Asynchronously retrieves an account by its name, reading it from the
+     * database when it is not in memory. The future of a resident account is
+     * already complete.
+     *
+     * @param name The name associated with the account.
+     * @return A {@link CompletableFuture} containing the account if found.
+     */
+    public CompletableFuture<Optional<Account>> loadAccount(final String name) {
+        final Optional<Account> account = this.getAccount(name);
+        if (account.isPresent() || !this.lazy) return CompletableFuture.completedFuture(account);
+
+        return this.plugin.getDataController().queryAccount(name).thenApply(this::makeResident);
+    }
+
+    /**
+     * Asynchronously loads an account into memory. Concurrent loads of the
+     * same account share a single database read.
+     *
+     * @param id The UUID of the account.
+     * @return A {@link CompletableFuture} containing the account if found.
+     */
+    public CompletableFuture<Optional<Account>> loadAccount(final UUID id) {
+        final Optional<Account> resident = this.getAccount(id);
+        if (resident.isPresent()) return CompletableFuture.completedFuture(resident);
+
+        final CompletableFuture<Optional<Account>> future = this.loading.computeIfAbsent(id, key ->
+                this.plugin.getDataController().queryAccount(key).thenApply(this::makeResident)
+        );
+
+        future.whenComplete((account, ex) -> this.loading.remove(id, future));
+        return future;
+    }
+
+    /**
+     * Adds a freshly read account to the cache, unless another copy got there first.
+     *
+     * @param loaded The account read from the database.
+     * @return The account held by the cache.
+     */
+    private Optional<Account> makeResident(final Optional<Account> loaded) {
+        return loaded.map(this::cacheIfAbsent).map(account -> {
+            if (account.getKind() == null) this.setKind(account, this.classify(account.getId(), account.getName()));
+            return account;
+        });
+    }
+
+    // Adds an account to the cache and the name index, replacing any cached copy
+    private void cache(final Account account) {
+        final Account previous = this.accounts.put(account.getId(), account);
+        if (previous != null) this.nameIndex.remove(previous);
+
+        this.nameIndex.add(account);
+    }
+
+    // Adds an account to the cache and the name index, unless another copy got there first
+    private Account cacheIfAbsent(final Account account) {
+        final Account existing = this.accounts.putIfAbsent(account.getId(), account);
+        if (existing != null) return existing;
+
+        this.nameIndex.add(account);
+        return account;
+    }
+
+    /**
+     * Moves an amount between two accounts as a single transfer. Both legs
+     * are applied together under the locks of both accounts and recorded as
+     * one linked journal entry, so the money is never missing from both or
+     * present in both. Integrating plugins may call this directly.
+     *
+     * @param from       The UUID of the account to debit.
+     * @param to         The UUID of the account to credit.
+     * @param amount     The amount to move, in minor units.
+     * @param transactor The actor responsible for the transfer.
+     * @return The outcome of the transfer.
+     */
+    public TransferResult transfer(final UUID from, final UUID to, final long amount, final Transactor transactor) {
+        final Optional<Account> source = this.getOrLoadAccount(from);
+        final Optional<Account> target = this.getOrLoadAccount(to);
+
+        if (source.isEmpty() || target.isEmpty()) {
+            return TransferResult.ACCOUNT_NOT_FOUND;
+        }
+
+        return source.get().transfer(target.get(), amount, transactor);
+    }
+
+    /**
+     * Moves a decimal amount between two accounts as a single transfer. An
+     * amount with more decimal places than the scale, or beyond the balance
+     * limit, is rejected rather than rounded.
+     *
+     * @param from       The UUID of the account to debit.
+     * @param to         The UUID of the account to credit.
+     * @param amount     The amount to move.
+     * @param transactor The actor responsible for the transfer.
+     * @return The outcome of the transfer.
+     * @see #transfer(UUID, UUID, long, Transactor)
+     */
+    public TransferResult transfer(final UUID from, final UUID to, final BigDecimal amount, final Transactor transactor) {
+        final OptionalLong units = Money.ofExact(amount);
+        if (units.isEmpty()) return TransferResult.INVALID_AMOUNT;
+
+        return this.transfer(from, to, units.getAsLong(), transactor);
+    }
+
+    /**
+     * Evicts offline accounts that have been idle for longer than the
+     * configured TTL and have no unsaved changes. Evicted copies refuse
+     * further balance changes, and leave the leaderboard unless they are
+     * within its complete window.
+     *
+     * @return The number of evicted accounts.
+     */
+    public int evictIdleAccounts() {
+        if (!this.lazy) return 0;
+
+        final long ttl = TimeUnit.SECONDS.toMillis(this.plugin.getConfigController().getStorageConfig().getResidency().getIdleTtl());
+        final long cutoff = System.currentTimeMillis() - ttl;
+        int evicted = 0;
+
         for (final Account account : this.accounts.values()) {
-            if (account.getName().equals(name)) return Optional.of(account);
+            if (account.getLastAccess() > cutoff) continue;
+            if (!this.isEvictable(account)) continue;
+
+            if (this.accounts.remove(account.getId(), account)) {
+                // Put the account back if it changed while being removed, otherwise refuse changes to this copy
+                if (!account.evictIf(() -> this.isEvictable(account))) {
+                    this.cacheIfAbsent(account);
+                    continue;
+                }
+
+                this.nameIndex.remove(account);
+                this.leaderboard.evict(account.getId());
+                evicted++;
+            }
         }
-        return Optional.empty();
+
+        return evicted;
+    }
+
+    // Checks whether an account can leave memory without losing changes
+    private boolean isEvictable(final Account account) {
+        return !this.onlineAccounts.containsKey(account.getId())
+                && !this.plugin.getAccountQueueTask().isQueued(account.getId())
+                && account.isClean();
     }
 
     /**
@@ -94,16 +311,14 @@ public final class AccountController {
     }
 
     /**
-     * Retrieves an account from the online-only cache by the player's name.
+     * Retrieves an account from the online-only cache by the player's name,
+     * ignoring case.
      *
      * @param name The name of the online player.
      * @return An {@link Optional} containing the account if the player is online.
      */
     public Optional<Account> getPlayerAccount(final String name) {
-        for (final Account account : this.onlineAccounts.values()) {
-            if (account.getName().equals(name)) return Optional.of(account);
-        }
-        return Optional.empty();
+        return this.nameIndex.get(name).flatMap(this::getPlayerAccount);
     }
 
     /**
@@ -116,16 +331,37 @@ public final class AccountController {
      * @return The newly created {@link Account}.
      */
     public Account createAccount(final UUID id, final String name, final boolean player) {
-        final BigDecimal balance = this.plugin.getConfigController().getCurrencyConfig().getStartingBalance();
+        if (!player) return this.createAccount(id, name, this.classify(id, name));
+
+        return this.createAccount(id, name, AccountKind.PLAYER, true);
+    }
+
+    /**
+     * Creates a new economy account of a known kind with the configured
+     * starting balance and adds it to the cache.
+     *
+     * @param id   The unique ID for the new account.
+     * @param name The name to associate with the account.
+     * @param kind The kind of owner behind the account.
+     * @return The newly created {@link Account}.
+     */
+    public Account createAccount(final UUID id, final String name, final AccountKind kind) {
+        return this.createAccount(id, name, kind, false);
+    }
+
+    // Creates an account, tracking it as online when it belongs to a connected player
+    private Account createAccount(final UUID id, final String name, final AccountKind kind, final boolean online) {
+        final long balance = this.plugin.getConfigController().getCurrencyConfig().getStartingBalance();
         final Account account = Account.builder()
                 .plugin(this.plugin)
                 .id(id)
                 .name(name)
                 .balance(balance)
+                .kind(kind)
                 .build();
 
-        this.accounts.put(id, account);
-        if (player) this.onlineAccounts.put(id, account);
+        this.cache(account);
+        if (online) this.onlineAccounts.put(id, account);
 
         // Save the account
         account.saveAccount();
@@ -133,6 +369,58 @@ public final class AccountController {
         return account;
     }
 
+    /**
+     * Works out the kind of a new or unclassified account, from its name
+     * when it follows a known convention and from the player data otherwise.
+     *
+     * @param id   The unique ID of the account.
+     * @param name The name of the account.
+     * @return The kind of owner behind the account.
+     */
+    public AccountKind classify(final UUID id, final String name) {
+        final AccountKind named = AccountKind.ofName(name);
+        if (named != null) return named;
+
+        final boolean player = this.plugin.getServer().getPlayer(id) != null
+                || this.plugin.getServer().getOfflinePlayer(id).hasPlayedBefore();
+        return player ? AccountKind.PLAYER : AccountKind.PLUGIN;
+    }
+
+    /**
+     * Classifies the resident accounts that predate account kinds. The
+     * player data is listed once for all of them, and the kinds are then
+     * stored, so this only does work on the first start after upgrading.
+     */
+    private void classifyAccounts() {
+        final List<Account> unclassified = this.accounts.values()
+                .stream()
+                .filter(account -> account.getKind() == null)
+                .toList();
+        if (unclassified.isEmpty()) return;
+
+        final Set<UUID> players = new HashSet<>();
+        for (final OfflinePlayer player : this.plugin.getServer().getOfflinePlayers()) {
+            players.add(player.getUniqueId());
+        }
+
+        for (final Account account : unclassified) {
+            final AccountKind named = AccountKind.ofName(account.getName());
+            final AccountKind kind = named != null
+                    ? named
+                    : players.contains(account.getId()) ? AccountKind.PLAYER : AccountKind.PLUGIN;
+
+            this.setKind(account, kind);
+        }
+
+        this.plugin.getComponentLogger().info("Classified {} accounts by kind", unclassified.size());
+    }
+
+    // Sets the kind of an account and re-indexes it under that kind
+    private void setKind(final Account account, final AccountKind kind) {
+        account.setKind(kind);
+        this.nameIndex.add(account);
+    }
+
     /**
      * Removes an account from the cache and deletes its data from the database.
      *
@@ -140,27 +428,167 @@ public final class AccountController {
      * @return {@code true} if the deletion process was initiated.
      */
     public boolean deleteAccount(final UUID id) {
-        this.accounts.remove(id);
+        final Account account = this.accounts.remove(id);
+        if (account != null) {
+            account.markDeleted();
+            this.nameIndex.remove(account);
+        }
+        this.leaderboard.remove(id);
+        this.plugin.getAccountQueueTask().forget(id);
 
         this.plugin.getDataController().deleteAccount(id);
         return true;
     }
 
     /**
-     * Loads all accounts from the database into the primary cache.
+     * Loads all accounts into the primary cache, from the snapshot file when
+     * it can be reconciled with the database and from a full table scan otherwise.
+     */
+    private void loadAccounts() {
+        final long start = System.nanoTime();
+        final int total = this.plugin.getDataController().countAccounts().join();
+
+        if (!this.loadSnapshot(total)) {
+            this.loadTable(total);
+        }
+
+        this.plugin.getComponentLogger().info("Loaded {} accounts into cache in {}ms",
+                this.accounts.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        );
+    }
+
+    /**
+     * Loads the accounts from the snapshot file, then re-reads the rows
+     * written since the snapshot's high-water mark. The stored account IDs
+     * are then compared with the cached ones, dropping accounts deleted
+     * since the snapshot was written.
+     *
+     * @param total The number of accounts stored in the database.
+     * @return {@code true} if the cache now matches the database.
+     */
+    private boolean loadSnapshot(final int total) {
+        if (!this.plugin.getConfigController().getStorageConfig().getSnapshot().isEnabled()) return false;
+
+        final AccountSnapshot snapshot;
+        try {
+            final Optional<AccountSnapshot> read = AccountSnapshot.read(this.plugin.getDataPath().resolve(Constants.SNAPSHOT_FILE));
+            if (read.isEmpty()) return false;
+
+            snapshot = read.get();
+        } catch (final IOException e) {
+            this.plugin.getComponentLogger().warn("Error reading account snapshot, loading from the database", e);
+            return false;
+        }
+
+        this.plugin.getComponentLogger().info("Loading {} accounts from snapshot", snapshot.getCount());
+
+        this.accounts = new ConcurrentHashMap<>(Math.max(16, Math.max(total, snapshot.getCount())));
+        this.nameIndex.clear();
+        snapshot.forEach(memento -> this.cache(memento.toAccount(this.plugin)));
+
+        // Rows written after the mark replace their snapshot entries
+        final int changed = this.plugin.getDataController().streamAccountsChangedSince(snapshot.getMark(), this::cache).join();
+
+        if (changed < 0) {
+            this.plugin.getComponentLogger().warn("Account snapshot could not be reconciled, loading from the database");
+            return false;
+        }
+
+        // Deleted rows leave no trace in the changed rows, so compare the stored IDs with the cached ones
+        final Set<UUID> deleted = new HashSet<>(this.accounts.keySet());
+        final int[] unknown = new int[1];
+
+        final int ids = this.plugin.getDataController().streamAccountIds(id -> {
+            if (!deleted.remove(id)) unknown[0]++;
+        }).join();
+
+        if (ids < 0 || unknown[0] > 0) {
+            this.plugin.getComponentLogger().warn("Account snapshot does not match the database, loading from the database");
+            return false;
+        }
+
+        for (final UUID id : deleted) {
+            final Account account = this.accounts.remove(id);
+            if (account != null) this.nameIndex.remove(account);
+        }
+
+        this.plugin.getComponentLogger().info("Reconciled {} accounts changed and {} deleted since the snapshot",
+                changed,
+                deleted.size()
+        );
+        return true;
+    }
+
+    /**
+     * Loads all accounts from the database, streaming rows straight into a
+     * map sized for the stored account count.
      *
-     * @return A {@link CompletableFuture} that completes when the load is finished.
+     * @param total The number of accounts stored in the database.
      */
-    private CompletableFuture<Void> loadAccounts() {
-        return this.plugin.getDataController().queryAccounts().thenAccept(accounts -> {
-            for (final Account account : accounts) {
-                this.accounts.put(account.getId(), account);
+    private void loadTable(final int total) {
+        this.plugin.getComponentLogger().info("Loading {} accounts into cache", total);
+
+        // Size the map up front so it never rehashes while loading
+        this.accounts = new ConcurrentHashMap<>(Math.max(16, total));
+        this.nameIndex.clear();
+
+        this.plugin.getDataController().streamAccounts(account -> {
+            this.cache(account);
+
+            final int size = this.accounts.size();
+            if (size % LOAD_PROGRESS_INTERVAL == 0) {
+                this.plugin.getComponentLogger().info("Loaded {}/{} accounts", size, total);
             }
-        });
+        }).join();
+    }
+
+    /**
+     * Re-applies balance changes from the journal that the database had not
+     * acknowledged before the last shutdown.
+     */
+    private void replayJournal() {
+        final JournalController journal = this.plugin.getJournalController();
+        final List<JournalEntry> entries = journal.replay();
+        if (entries.isEmpty()) return;
+
+        final Set<UUID> restored = new HashSet<>();
+        int requeued = 0;
+
+        for (final JournalEntry entry : entries) {
+            final Transaction transaction = entry.transaction();
+
+            // Restore balances the database has not stored yet
+            if (entry.segment() > journal.getAccountCheckpoint()) {
+                final Account account = this.getOrLoadAccount(transaction.accountId()).orElseGet(() ->
+                        this.cacheIfAbsent(Account.builder()
+                                .plugin(this.plugin)
+                                .id(transaction.accountId())
+                                .name(transaction.accountName())
+                                .balance(0)
+                                .build()));
+
+                account.restoreBalance(entry.balance());
+                restored.add(account.getId());
+            }
+
+            // Re-queue transactions the database has not stored yet
+            if (entry.segment() > journal.getTransactionCheckpoint()) {
+                this.plugin.getTransactionQueueTask().requeue(transaction);
+                requeued++;
+            }
+        }
+
+        this.plugin.getComponentLogger().info("Replayed {} journal entries, restored {} accounts and re-queued {} transactions",
+                entries.size(),
+                restored.size(),
+                requeued
+        );
     }
 
     /**
-     * Updates the name associated with an account in the cache.
+     * Updates the name associated with an account in the cache and the
+     * name index.
      *
      * @param id   The UUID of the account.
      * @param name The new name to set.
@@ -168,21 +596,37 @@ public final class AccountController {
      */
     public boolean renameAccount(final UUID id, final String name) {
         final Account account = this.accounts.get(id);
+        if (account == null) return false;
 
-        if (account != null) {
-            return account.setName(name);
+        // Serialize renames of the same account so the index follows the last one
+        synchronized (account) {
+            final String oldName = account.getName();
+            if (!account.setName(name)) return false;
+
+            this.nameIndex.rename(account, oldName);
+            return true;
         }
-        return false;
     }
 
     /**
-     * Refreshes the leaderboard list with the provided set of accounts.
+     * Places an account on the leaderboard at its current balance, or takes
+     * it off if it no longer qualifies. Called on every account change, so it
+     * only notes the account for the leaderboard's next read.
      *
-     * @param accounts The new list of top accounts.
+     * @param account The changed account.
      */
-    public void updateTopAccounts(final List<Account> accounts) {
-        this.topAccounts.clear();
-        this.topAccounts.addAll(accounts);
+    public void rankAccount(final Account account) {
+        this.leaderboard.update(account);
+    }
+
+    // Checks whether an account qualifies for the leaderboard
+    public boolean isRanked(final Account account) {
+        return account.getBalance() != 0 && this.isPlayer(account);
+    }
+
+    // Checks whether an account belongs to a player
+    public boolean isPlayer(final Account account) {
+        return account.getKind() == AccountKind.PLAYER;
     }
 
     /**
@@ -192,6 +636,9 @@ public final class AccountController {
      */
     public void addPlayerAccount(final Account account) {
         this.onlineAccounts.put(account.getId(), account);
+
+        // A connected player's account is a player account whatever it was created as
+        if (account.getKind() != AccountKind.PLAYER) this.setKind(account, AccountKind.PLAYER);
     }
 
     /**
@@ -205,14 +652,15 @@ public final class AccountController {
 
     /**
      * Synchronizes a player's Minecraft experience and level to match
-     * their economy account balance.
+     * their economy account balance. The update runs on the region thread
+     * that owns the player, as balances change from any thread.
      *
      * @param player The player whose experience bar should be updated.
      */
     public void updateExp(final Player player) {
-        this.getPlayerAccount(player).ifPresent(account -> {
+        this.getPlayerAccount(player).ifPresent(account -> EconomyUtils.runForPlayer(this.plugin, player, () -> {
             final CurrencyConfig config = this.plugin.getConfigController().getCurrencyConfig();
-            final double balance = account.getBalance().doubleValue();
+            final double balance = Money.toDouble(account.getBalance());
             final int newLevel = (int) balance;
             final float progress = (float) (balance - newLevel);
 
@@ -229,7 +677,7 @@ public final class AccountController {
 
             player.setLevel(newLevel);
             player.setExp(progress);
-        });
+        }));
     }
 
 }
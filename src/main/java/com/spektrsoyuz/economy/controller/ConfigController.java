@@ -2,23 +2,27 @@ package com.spektrsoyuz.economy.controller;
 
 import com.spektrsoyuz.economy.Constants;
 import com.spektrsoyuz.economy.EconomyPlugin;
+import com.spektrsoyuz.economy.model.config.ConfigSnapshot;
 import com.spektrsoyuz.economy.model.config.ConfigWrapper;
 import com.spektrsoyuz.economy.model.config.CurrencyConfig;
+import com.spektrsoyuz.economy.model.config.MessageTemplate;
 import com.spektrsoyuz.economy.model.config.OptionsConfig;
 import com.spektrsoyuz.economy.model.config.StorageConfig;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.format.TextDecoration;
 import net.kyori.adventure.text.minimessage.MiniMessage;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.jetbrains.annotations.NotNull;
+import org.spongepowered.configurate.CommentedConfigurationNode;
 import org.spongepowered.configurate.serialize.SerializationException;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Controller class for config files.
@@ -31,6 +35,15 @@ public final class ConfigController {
     private final EconomyPlugin plugin;
 
     private final Map<String, ConfigWrapper> configs = new ConcurrentHashMap<>();
+    private final List<Consumer<ConfigSnapshot>> reloadListeners = new CopyOnWriteArrayList<>();
+
+    // Published after every load, replaced as a whole
+    @Getter
+    private volatile ConfigSnapshot snapshot = new ConfigSnapshot(new CurrencyConfig(), new OptionsConfig(), new StorageConfig());
+
+    // Compiled on every load, replaced as a whole
+    private volatile String prefix = "";
+    private volatile Map<String, MessageTemplate> messages = Map.of();
 
     /**
      * Initializes the controller.
@@ -43,12 +56,38 @@ public final class ConfigController {
     }
 
     /**
-     * Loads all configuration files.
+     * Loads all configuration files, deserializes the primary configuration
+     * into a new {@link ConfigSnapshot} and compiles every message, then
+     * swaps both in atomically. Reload listeners are notified once the new
+     * snapshot is published.
      */
     public void load() {
         for (final ConfigWrapper config : this.configs.values()) {
             config.load();
         }
+
+        this.compileMessages();
+
+        final ConfigSnapshot snapshot = new ConfigSnapshot(
+                this.getConfig("currency", CurrencyConfig.class, new CurrencyConfig()),
+                this.getConfig("options", OptionsConfig.class, new OptionsConfig()),
+                this.getConfig("storage", StorageConfig.class, new StorageConfig())
+        );
+
+        this.snapshot = snapshot;
+        for (final Consumer<ConfigSnapshot> listener : this.reloadListeners) {
+            listener.accept(snapshot);
+        }
+    }
+
+    /**
+     * Registers a listener that receives every newly loaded snapshot, for
+     * dependants that keep their own copy of a setting.
+     *
+     * @param listener The listener.
+     */
+    public void addReloadListener(final Consumer<ConfigSnapshot> listener) {
+        this.reloadListeners.add(listener);
     }
 
     /**
@@ -73,30 +112,30 @@ public final class ConfigController {
     }
 
     /**
-     * Retrieves the currency-specific settings from the primary configuration.
+     * Retrieves the currency-specific settings from the current snapshot.
      *
      * @return A {@link CurrencyConfig} instance, or defaults if loading fails.
      */
     public @NotNull CurrencyConfig getCurrencyConfig() {
-        return this.getConfig("currency", CurrencyConfig.class, new CurrencyConfig());
+        return this.snapshot.currency();
     }
 
     /**
-     * Retrieves the general plugin options from the primary configuration.
+     * Retrieves the general plugin options from the current snapshot.
      *
      * @return An {@link OptionsConfig} instance, or defaults if loading fails.
      */
     public @NotNull OptionsConfig getOptionsConfig() {
-        return this.getConfig("options", OptionsConfig.class, new OptionsConfig());
+        return this.snapshot.options();
     }
 
     /**
-     * Retrieves the database storage settings from the primary configuration.
+     * Retrieves the database storage settings from the current snapshot.
      *
      * @return A {@link StorageConfig} instance, or defaults if loading fails.
      */
     public @NotNull StorageConfig getStorageConfig() {
-        return this.getConfig("storage", StorageConfig.class, new StorageConfig());
+        return this.snapshot.storage();
     }
 
     /**
@@ -126,22 +165,39 @@ public final class ConfigController {
         }
     }
 
+    /**
+     * Compiles every message in the messages configuration into a
+     * {@link MessageTemplate}, parsing each message and its prefix once.
+     */
+    private void compileMessages() {
+        final CommentedConfigurationNode node = this.configs.get(Constants.CONFIG_MESSAGES).getNode();
+        final String prefix = node.node("prefix").getString("");
+        final MiniMessage miniMessage = this.plugin.getMiniMessage();
+
+        final Map<String, MessageTemplate> messages = new HashMap<>();
+        for (final var entry : node.childrenMap().entrySet()) {
+            final String message = entry.getValue().getString();
+
+            if (message != null) {
+                messages.put(String.valueOf(entry.getKey()), MessageTemplate.compile(message, prefix, miniMessage));
+            }
+        }
+
+        this.prefix = prefix;
+        this.messages = Map.copyOf(messages);
+    }
+
     /**
      * Retrieves the global message prefix from the messages configuration.
      *
      * @return The configured prefix string, or an empty string if not found.
      */
     public @NotNull String getPrefix() {
-        final ConfigWrapper configWrapper = this.configs.get(Constants.CONFIG_MESSAGES);
-        final String prefix = configWrapper.getNode().node("prefix").getString();
-
-        return prefix != null
-                ? prefix
-                : "";
+        return this.prefix;
     }
 
     /**
-     * Retrieves and processes a localized message from the messages configuration.
+     * Retrieves a localized message compiled from the messages configuration.
      *
      * @param key         The localization key in the config.
      * @param miniMessage The MiniMessage instance to use for deserialization.
@@ -153,19 +209,11 @@ public final class ConfigController {
             final MiniMessage miniMessage,
             final TagResolver... resolvers
     ) {
-        final ConfigWrapper configWrapper = this.configs.get(Constants.CONFIG_MESSAGES);
-        final String message = configWrapper.getNode().node(key).getString();
-
-        final List<TagResolver> tagResolvers = new ArrayList<>(List.of(resolvers));
-        tagResolvers.add(Placeholder.parsed("prefix", this.getPrefix()));
-
-        if (message != null) {
-            // Deserialize message
-            return miniMessage.deserialize(message, tagResolvers.toArray(TagResolver[]::new))
-                    .decorationIfAbsent(
-                            TextDecoration.ITALIC,
-                            TextDecoration.State.FALSE
-                    );
+        final MessageTemplate template = this.messages.get(key);
+
+        if (template != null) {
+            // Substitute dynamic placeholders
+            return template.render(miniMessage, resolvers);
         }
 
         return Component.text(key);
@@ -1,24 +1,33 @@
 package com.spektrsoyuz.economy.controller;
 
 import com.spektrsoyuz.economy.EconomyPlugin;
+import com.spektrsoyuz.economy.model.StorageType;
 import com.spektrsoyuz.economy.model.account.Account;
 import com.spektrsoyuz.economy.model.account.Transaction;
 import com.spektrsoyuz.economy.model.config.OptionsConfig;
 import com.spektrsoyuz.economy.model.config.StorageConfig;
-import com.spektrsoyuz.economy.model.data.EconomyArgumentFactory;
-import com.spektrsoyuz.economy.model.data.EconomyDao;
+import com.spektrsoyuz.economy.model.data.*;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.qualifier.QualifiedType;
+import org.jdbi.v3.core.result.ResultIterable;
+import org.jdbi.v3.core.result.ResultIterator;
 import org.jdbi.v3.sqlobject.SqlObjectPlugin;
-import org.jetbrains.annotations.NotNull;
 
-import java.util.Optional;
-import java.util.Set;
-import java.util.UUID;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Controller class for data.
@@ -32,6 +41,10 @@ public final class DataController {
 
     private HikariDataSource dataSource;
     private Jdbi jdbi;
+    private StorageBackend backend;
+
+    @Getter
+    private PersistenceExecutor executor;
 
     /**
      * Initializes the controller.
@@ -40,7 +53,21 @@ public final class DataController {
         final StorageConfig storageConfig = this.plugin.getConfigController().getStorageConfig();
         final OptionsConfig optionsConfig = this.plugin.getConfigController().getOptionsConfig();
 
-        final HikariConfig hikariConfig = this.getHikariConfig(storageConfig);
+        this.backend = switch (this.resolveStorageType(storageConfig)) {
+            case MYSQL -> new MySqlStorageBackend();
+            case SQLITE -> new SqliteStorageBackend(this.plugin.getDataPath());
+        };
+
+        final HikariConfig hikariConfig = this.backend.createHikariConfig(storageConfig);
+        final StorageConfig.ExecutorConfig executorConfig = storageConfig.getExecutor();
+
+        // Create the persistence executor, sized to the connection pool
+        this.executor = new PersistenceExecutor(
+                executorConfig.getType(),
+                hikariConfig.getMaximumPoolSize(),
+                executorConfig.getQueueSize(),
+                executorConfig.getRejectionPolicy()
+        );
 
         try {
             this.dataSource = new HikariDataSource(hikariConfig);
@@ -53,11 +80,24 @@ public final class DataController {
         }
 
         this.jdbi.registerArgument(new EconomyArgumentFactory());
+        this.jdbi.registerColumnMapper(UUID.class, new UuidColumnMapper());
+        this.jdbi.registerArgument(new MoneyArgumentFactory());
+        this.jdbi.registerColumnMapper(QualifiedType.of(long.class).with(MinorUnits.class), new MoneyColumnMapper());
 
-        this.jdbi.useExtension(EconomyDao.class, dao -> {
-            dao.createAccountsTable();
-            dao.createTransactionsTable();
+        try {
+            new SchemaMigrator(
+                    this.plugin.getComponentLogger(),
+                    this.jdbi,
+                    this.backend.getDaoType(),
+                    Math.max(1, storageConfig.getBatchSize())
+            ).migrate();
+        } catch (final Exception e) {
+            this.plugin.getComponentLogger().error("Error migrating database schema", e);
+            this.plugin.getServer().getPluginManager().disablePlugin(this.plugin);
+            return;
+        }
 
+        this.jdbi.useExtension(this.backend.getDaoType(), dao -> {
             if (optionsConfig.isAccountExpire()) {
                 dao.expireAccounts(optionsConfig.getAccountExpireDuration());
             }
@@ -69,69 +109,183 @@ public final class DataController {
     }
 
     /**
-     * Configures the HikariCP connection pool with database credentials
-     * and performance optimizations for MySQL.
+     * Resolves the storage type to connect to. Versions before 1.1.0 always
+     * used MySQL and shipped {@code type = "sqlite"} as an ignored default, so
+     * a config that still says SQLite but carries MySQL connection settings,
+     * with no SQLite database created yet, is treated as a MySQL install
+     * rather than started on an empty database.
      *
-     * @param storageConfig The configuration containing database credentials.
-     * @return A configured {@link HikariConfig} instance.
+     * @param storageConfig The storage settings.
+     * @return The storage type.
      */
-    private @NotNull HikariConfig getHikariConfig(final StorageConfig storageConfig) {
-        final HikariConfig hikariConfig = new HikariConfig();
-        final String url = String.format("jdbc:mysql://%s:%s/%s",
-                storageConfig.getHost(),
-                storageConfig.getPort(),
-                storageConfig.getDatabase()
-        );
+    private StorageType resolveStorageType(final StorageConfig storageConfig) {
+        final StorageType type = storageConfig.getType();
+        if (type != StorageType.SQLITE || !storageConfig.hasMySqlSettings()) return type;
 
-        hikariConfig.setJdbcUrl(url);
-        hikariConfig.setUsername(storageConfig.getUsername());
-        hikariConfig.setPassword(storageConfig.getPassword());
+        final Path file = this.plugin.getDataPath().resolve(storageConfig.getDatabase() + ".db");
+        if (Files.exists(file)) return type;
 
-        // Performance optimizations for MySQL
-        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-        hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
+        this.plugin.getComponentLogger().warn(
+                "Storage type is 'sqlite' but MySQL connection settings are set and '{}' does not exist. "
+                        + "This looks like a config from before SQLite support, so MySQL is used. "
+                        + "Set storage.type to \"mysql\" to keep it, or clear the MySQL settings to switch to SQLite.",
+                file.getFileName()
+        );
+        return StorageType.MYSQL;
+    }
 
-        return hikariConfig;
+    /**
+     * Asynchronously saves a batch of account states to the database,
+     * committing each chunk in its own database transaction.
+     *
+     * @param accounts The account mementos to persist.
+     * @param failed   Receives the accounts of any chunk that was rolled back.
+     * @return A {@link CompletableFuture} containing the flush statistics.
+     */
+    public CompletableFuture<FlushStats> saveAccounts(
+            final List<Account.Memento> accounts,
+            final Consumer<List<Account.Memento>> failed
+    ) {
+        return this.saveAsync("accounts", accounts, failed, EconomyDao::saveAccounts);
     }
 
     /**
-     * Asynchronously saves an account's state to the database.
+     * Asynchronously adds a batch of balance deltas to the stored balances,
+     * committing each chunk in its own database transaction.
+     * <p>
+     * A delta whose row no longer exists, e.g. because it expired since the
+     * account was loaded, updates nothing. Those rows are written in full
+     * within the same transaction, so the change is not dropped.
      *
-     * @param account The account memento to persist.
+     * @param deltas  The balance deltas to apply.
+     * @param missing Gets the full row for a delta that updated nothing, or {@code null} to skip it.
+     * @param failed  Receives the deltas of any chunk that was rolled back.
+     * @return A {@link CompletableFuture} containing the flush statistics.
      */
-    public void saveAccount(final Account.Memento account) {
-        CompletableFuture.runAsync(() ->
-                this.jdbi.useExtension(EconomyDao.class, dao -> dao.saveAccount(account))
-        ).exceptionally(ex -> {
-            this.plugin.getComponentLogger().error("Error saving accountId '{}'", account.id(), ex);
-            return null;
+    public CompletableFuture<FlushStats> saveBalanceDeltas(
+            final List<Account.Delta> deltas,
+            final Function<Account.Delta, Account.Memento> missing,
+            final Consumer<List<Account.Delta>> failed
+    ) {
+        return this.saveAsync("balance deltas", deltas, failed, (dao, chunk) -> {
+            final int[] counts = dao.saveBalanceDeltas(chunk);
+            final List<Account.Memento> rows = new ArrayList<>();
+
+            for (int i = 0; i < counts.length && i < chunk.size(); i++) {
+                if (counts[i] != 0) continue;
+
+                final Account.Memento row = missing.apply(chunk.get(i));
+                if (row != null) rows.add(row);
+            }
+
+            if (!rows.isEmpty()) {
+                this.plugin.getComponentLogger().warn("Recreating {} account rows missing from the database", rows.size());
+                dao.saveAccounts(rows);
+            }
         });
     }
 
     /**
-     * Asynchronously saves a transaction record to the database.
+     * Asynchronously saves the name and flags of a batch of accounts,
+     * committing each chunk in its own database transaction.
+     *
+     * @param accounts The account mementos to persist.
+     * @param failed   Receives the accounts of any chunk that was rolled back.
+     * @return A {@link CompletableFuture} containing the flush statistics.
+     */
+    public CompletableFuture<FlushStats> saveAccountMetadata(
+            final List<Account.Memento> accounts,
+            final Consumer<List<Account.Memento>> failed
+    ) {
+        return this.saveAsync("account metadata", accounts, failed, EconomyDao::saveAccountMetadata);
+    }
+
+    /**
+     * Asynchronously saves a batch of transaction records to the database,
+     * committing each chunk in its own database transaction.
+     *
+     * @param transactions The transactions to persist.
+     * @param failed       Receives the transactions of any chunk that was rolled back.
+     * @return A {@link CompletableFuture} containing the flush statistics.
+     */
+    public CompletableFuture<FlushStats> saveTransactions(
+            final List<Transaction> transactions,
+            final Consumer<List<Transaction>> failed
+    ) {
+        return this.saveAsync("transactions", transactions, failed, EconomyDao::saveTransactions);
+    }
+
+    /**
+     * Runs a chunked write on the persistence executor, handing every record
+     * to the failure callback if the write could not run at all.
      *
-     * @param transaction The transaction to persist.
+     * @param description The kind of records, for logging.
+     * @param records     The records to persist.
+     * @param failed      Receives the records of any chunk that was rolled back.
+     * @param writer      The DAO operation that writes a single chunk.
+     * @return A {@link CompletableFuture} containing the flush statistics.
      */
-    public void saveTransaction(final Transaction transaction) {
-        CompletableFuture.runAsync(() ->
-                this.jdbi.useExtension(EconomyDao.class, dao -> dao.saveTransaction(transaction))
+    private <T> CompletableFuture<FlushStats> saveAsync(
+            final String description,
+            final List<T> records,
+            final Consumer<List<T>> failed,
+            final BiConsumer<EconomyDao, List<T>> writer
+    ) {
+        return this.supplyAsync(() ->
+                this.saveChunked(records, failed, writer)
         ).exceptionally(ex -> {
-            this.plugin.getComponentLogger().error("Error saving transaction", ex);
-            return null;
+            this.plugin.getComponentLogger().error("Error saving {}", description, ex);
+            failed.accept(records);
+            return new FlushStats(0, 0, 0, 0);
         });
     }
 
+    /**
+     * Writes records in chunks of the configured batch size, each chunk
+     * inside its own database transaction.
+     *
+     * @param records The records to persist.
+     * @param failed  Receives the records of any chunk that was rolled back.
+     * @param writer  The DAO operation that writes a single chunk.
+     * @return The statistics for the flush.
+     */
+    private <T> FlushStats saveChunked(
+            final List<T> records,
+            final Consumer<List<T>> failed,
+            final BiConsumer<EconomyDao, List<T>> writer
+    ) {
+        final int chunkSize = Math.max(1, this.plugin.getConfigController().getStorageConfig().getBatchSize());
+        final long start = System.nanoTime();
+
+        int rows = 0;
+        int chunks = 0;
+        int failedChunks = 0;
+
+        for (int i = 0; i < records.size(); i += chunkSize) {
+            final List<T> chunk = records.subList(i, Math.min(i + chunkSize, records.size()));
+
+            try {
+                this.jdbi.useTransaction(handle -> writer.accept(handle.attach(this.backend.getDaoType()), chunk));
+                rows += chunk.size();
+                chunks++;
+            } catch (final Exception e) {
+                this.plugin.getComponentLogger().error("Error saving chunk of {} rows", chunk.size(), e);
+                failed.accept(new ArrayList<>(chunk));
+                failedChunks++;
+            }
+        }
+
+        return new FlushStats(rows, chunks, failedChunks, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
     /**
      * Asynchronously deletes an account from the database by its unique ID.
      *
      * @param id The UUID of the account to remove.
      */
     public void deleteAccount(final UUID id) {
-        CompletableFuture.runAsync(() ->
-                this.jdbi.useExtension(EconomyDao.class, dao -> dao.deleteAccount(id.toString()))
+        this.runAsync(() ->
+                this.jdbi.useExtension(this.backend.getDaoType(), dao -> dao.deleteAccount(id))
         ).exceptionally(ex -> {
             this.plugin.getComponentLogger().error("Error deleting accountId '{}'", id, ex);
             return null;
@@ -145,9 +299,9 @@ public final class DataController {
      * @return A {@link CompletableFuture} containing an {@link Optional} account.
      */
     public CompletableFuture<Optional<Account>> queryAccount(final UUID id) {
-        return CompletableFuture.supplyAsync(() ->
-                this.jdbi.withExtension(EconomyDao.class, dao ->
-                        dao.getAccountById(id.toString())
+        return this.supplyAsync(() ->
+                this.jdbi.withExtension(this.backend.getDaoType(), dao ->
+                        dao.getAccountById(id)
                                 .map(memento -> memento.toAccount(this.plugin)))
         ).exceptionally(ex -> {
             this.plugin.getComponentLogger().error("Error querying accountId by UUID: {}", id, ex);
@@ -162,8 +316,8 @@ public final class DataController {
      * @return A {@link CompletableFuture} containing an {@link Optional} account.
      */
     public CompletableFuture<Optional<Account>> queryAccount(final String name) {
-        return CompletableFuture.supplyAsync(() ->
-                this.jdbi.withExtension(EconomyDao.class, dao ->
+        return this.supplyAsync(() ->
+                this.jdbi.withExtension(this.backend.getDaoType(), dao ->
                         dao.getAccountByName(name)
                                 .map(memento -> memento.toAccount(this.plugin)))
         ).exceptionally(ex -> {
@@ -173,29 +327,190 @@ public final class DataController {
     }
 
     /**
-     * Asynchronously retrieves all accounts stored in the database.
+     * Asynchronously retrieves the accounts with the highest balances.
+     *
+     * @param limit The maximum number of accounts to return.
+     * @return A {@link CompletableFuture} containing the mementos, highest balance first.
+     */
+    public CompletableFuture<List<Account.Memento>> queryTopAccounts(final int limit) {
+        return this.supplyAsync(() ->
+                this.jdbi.withExtension(this.backend.getDaoType(), dao -> dao.getTopAccounts(limit))
+        ).exceptionally(ex -> {
+            this.plugin.getComponentLogger().error("Error querying top accounts", ex);
+            return List.of();
+        });
+    }
+
+    /**
+     * Asynchronously counts the player accounts with a higher stored balance.
      *
-     * @return A {@link CompletableFuture} containing a set of all accounts.
+     * @param balance The balance to compare against, in minor units.
+     * @return A {@link CompletableFuture} containing the count, or -1 on failure.
      */
-    public CompletableFuture<Set<Account>> queryAccounts() {
-        return CompletableFuture.supplyAsync(() ->
-                this.jdbi.withExtension(EconomyDao.class, dao ->
-                        dao.getAccounts().stream()
-                                .map(memento -> memento.toAccount(this.plugin))
-                                .collect(Collectors.toSet()))
+    public CompletableFuture<Integer> countPlayerAccountsAbove(final long balance) {
+        return this.supplyAsync(() ->
+                this.jdbi.withExtension(this.backend.getDaoType(), dao -> dao.countPlayerAccountsAbove(balance))
         ).exceptionally(ex -> {
-            this.plugin.getComponentLogger().error("Error querying all accounts", ex);
-            return Set.of();
+            this.plugin.getComponentLogger().error("Error counting accounts above a balance", ex);
+            return -1;
         });
     }
 
     /**
-     * Closes the database connection pool.
+     * Asynchronously counts the accounts stored in the database.
+     *
+     * @return A {@link CompletableFuture} containing the account count.
+     */
+    public CompletableFuture<Integer> countAccounts() {
+        return this.supplyAsync(() ->
+                this.jdbi.withExtension(this.backend.getDaoType(), EconomyDao::countAccounts)
+        ).exceptionally(ex -> {
+            this.plugin.getComponentLogger().error("Error counting accounts", ex);
+            return 0;
+        });
+    }
+
+    /**
+     * Asynchronously gets the current database time.
+     *
+     * @return A {@link CompletableFuture} containing the time as seconds since the epoch, or -1 on failure.
+     */
+    public CompletableFuture<Long> queryDatabaseTime() {
+        return this.supplyAsync(() ->
+                this.jdbi.withExtension(this.backend.getDaoType(), EconomyDao::getDatabaseTime)
+        ).exceptionally(ex -> {
+            this.plugin.getComponentLogger().error("Error querying database time", ex);
+            return -1L;
+        });
+    }
+
+    /**
+     * Asynchronously streams every account stored in the database to a
+     * consumer, one row at a time, without collecting them first.
+     *
+     * @param consumer Receives each account as its row is read.
+     * @return A {@link CompletableFuture} containing the number of accounts read.
+     */
+    public CompletableFuture<Integer> streamAccounts(final Consumer<Account> consumer) {
+        return this.stream("accounts", consumer, (dao, fetchSize) -> dao.streamAccounts(fetchSize));
+    }
+
+    /**
+     * Asynchronously streams the accounts written at or after a point in
+     * time to a consumer, one row at a time.
+     *
+     * @param since    The database time, as seconds since the epoch.
+     * @param consumer Receives each changed account as its row is read.
+     * @return A {@link CompletableFuture} containing the number of accounts read, or -1 on failure.
+     */
+    public CompletableFuture<Integer> streamAccountsChangedSince(final long since, final Consumer<Account> consumer) {
+        return this.stream("changed accounts", consumer, (dao, fetchSize) -> dao.streamAccountsChangedSince(since, fetchSize));
+    }
+
+    /**
+     * Asynchronously streams the ID of every account stored in the database
+     * to a consumer, one row at a time.
+     *
+     * @param consumer Receives each account ID as its row is read.
+     * @return A {@link CompletableFuture} containing the number of IDs read, or -1 on failure.
+     */
+    public CompletableFuture<Integer> streamAccountIds(final Consumer<UUID> consumer) {
+        final int fetchSize = Math.max(1, this.plugin.getConfigController().getStorageConfig().getFetchSize());
+
+        return this.supplyAsync(() ->
+                this.jdbi.withExtension(this.backend.getDaoType(), dao -> {
+                    int count = 0;
+
+                    try (final ResultIterator<UUID> iterator = dao.streamAccountIds(fetchSize).iterator()) {
+                        while (iterator.hasNext()) {
+                            consumer.accept(iterator.next());
+                            count++;
+                        }
+                    }
+
+                    return count;
+                })
+        ).exceptionally(ex -> {
+            this.plugin.getComponentLogger().error("Error streaming account IDs", ex);
+            return -1;
+        });
+    }
+
+    /**
+     * Runs a streaming account query on the persistence executor.
+     *
+     * @param description The kind of query, for logging.
+     * @param consumer    Receives each account as its row is read.
+     * @param query       The DAO query, given the configured fetch size.
+     * @return A {@link CompletableFuture} containing the number of accounts read, or -1 on failure.
+     */
+    private CompletableFuture<Integer> stream(
+            final String description,
+            final Consumer<Account> consumer,
+            final BiFunction<EconomyDao, Integer, ResultIterable<Account.Memento>> query
+    ) {
+        final int fetchSize = Math.max(1, this.plugin.getConfigController().getStorageConfig().getFetchSize());
+
+        return this.supplyAsync(() ->
+                this.jdbi.withExtension(this.backend.getDaoType(), dao -> {
+                    int count = 0;
+
+                    try (final ResultIterator<Account.Memento> iterator = query.apply(dao, fetchSize).iterator()) {
+                        while (iterator.hasNext()) {
+                            consumer.accept(iterator.next().toAccount(this.plugin));
+                            count++;
+                        }
+                    }
+
+                    return count;
+                })
+        ).exceptionally(ex -> {
+            this.plugin.getComponentLogger().error("Error streaming {}", description, ex);
+            return -1;
+        });
+    }
+
+    /**
+     * Runs a task on the persistence executor.
+     *
+     * @param runnable The task to run.
+     * @return A {@link CompletableFuture} that completes when the task is finished,
+     * or completes exceptionally if the executor rejected it.
+     */
+    private CompletableFuture<Void> runAsync(final Runnable runnable) {
+        try {
+            return CompletableFuture.runAsync(runnable, this.executor);
+        } catch (final RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Supplies a value from the persistence executor.
+     *
+     * @param supplier The supplier to run.
+     * @return A {@link CompletableFuture} containing the supplied value,
+     * or completes exceptionally if the executor rejected it.
+     */
+    private <T> CompletableFuture<T> supplyAsync(final Supplier<T> supplier) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, this.executor);
+        } catch (final RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Waits for pending database work to finish and closes the connection pool.
      */
     public void close() {
+        if (this.executor != null && !this.executor.shutdown(10, TimeUnit.SECONDS)) {
+            this.plugin.getComponentLogger().warn("Timed out waiting for pending database tasks");
+        }
+
         if (this.dataSource != null && !this.dataSource.isClosed()) {
             this.dataSource.close();
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,535 @@
+package com.spektrsoyuz.economy.controller;
+
+import com.spektrsoyuz.economy.EconomyPlugin;
+import com.spektrsoyuz.economy.model.account.Money;
+import com.spektrsoyuz.economy.model.account.Transaction;
+import com.spektrsoyuz.economy.model.account.Transactor;
+import com.spektrsoyuz.economy.model.config.StorageConfig;
+import com.spektrsoyuz.economy.model.data.JournalEntry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Controller class for the write-ahead journal of balance mutations.
+ * <p>
+ * Every transaction is appended to the current segment and fsynced before
+ * the mutating call returns. Segments are sealed when the transaction queue
+ * is flushed, and deleted once both the transactions and the account
+ * balances they describe have been acknowledged by the database.
+ * <p>
+ * The mutating call is usually made on a tick thread, so each balance change
+ * costs that thread one append plus the wait for the fsync covering it. A
+ * lone writer is forced straight away; the sync thread only waits, for at
+ * most the sync interval, while further appends are on their way in, so a
+ * burst of changes shares one fsync rather than queueing behind a timer.
+ * The fsync runs with the lock released, so writers keep appending to the
+ * next group while it is in flight.
+ *
+ * @since 1.1.0
+ */
+@RequiredArgsConstructor
+public final class JournalController {
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final EconomyPlugin plugin;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = this.lock.newCondition();
+    private final Condition synced = this.lock.newCondition();
+
+    // Writers that are about to append, so a group commit is worth waiting for
+    private final AtomicInteger appending = new AtomicInteger();
+
+    private Path directory;
+    private boolean enabled;
+    private long syncInterval;
+    private Thread syncThread;
+    private volatile boolean running;
+
+    private FileChannel channel;
+    private long segment;
+    private long written;
+    private long durable;
+
+    // Whether an fsync is running with the lock released, so the channel must not be swapped
+    private boolean forcing;
+
+    @Getter
+    private volatile long lastSealed;
+    @Getter
+    private long transactionCheckpoint;
+    @Getter
+    private long accountCheckpoint;
+
+    /**
+     * Initializes the controller.
+     */
+    public void initialize() {
+        final StorageConfig.JournalConfig config = this.plugin.getConfigController().getStorageConfig().getJournal();
+
+        this.enabled = config.isEnabled();
+        if (!this.enabled) return;
+
+        this.directory = this.plugin.getDataPath().resolve("journal");
+        this.syncInterval = Math.max(0, config.getSyncInterval());
+
+        try {
+            Files.createDirectories(this.directory);
+            this.readCheckpoint();
+
+            // Continue numbering after the segments left by the last run
+            final long lastSegment = this.listSegments().stream()
+                    .mapToLong(Long::longValue)
+                    .max()
+                    .orElse(0L);
+
+            this.lastSealed = Math.max(lastSegment, Math.max(this.transactionCheckpoint, this.accountCheckpoint));
+            this.openSegment(this.lastSealed + 1);
+        } catch (final IOException e) {
+            this.plugin.getComponentLogger().error("Failed to open journal, balance changes will not be journaled", e);
+            this.enabled = false;
+            return;
+        }
+
+        this.running = true;
+        this.syncThread = Thread.ofPlatform()
+                .name("economy-journal")
+                .daemon(true)
+                .start(this::syncLoop);
+    }
+
+    /**
+     * Appends a transaction to the journal and waits until it is durable.
+     *
+     * @param transaction The transaction to record.
+     * @param balance     Reads the account balance, called while the journal
+     *                    is locked so the balances of concurrent mutations are
+     *                    recorded in the order they are appended.
+     * @param enqueue     Queues the transaction for the database, run while
+     *                    the journal is locked so it lands in the same segment.
+     */
+    public void append(final Transaction transaction, final LongSupplier balance, final Runnable enqueue) {
+        this.write(transaction, () -> this.encode(transaction, balance.getAsLong(), null, 0), enqueue);
+    }
+
+    /**
+     * Appends both legs of a transfer to the journal as a single record, so
+     * that a torn write can never replay one leg without the other, and
+     * waits until it is durable.
+     *
+     * @param debit         The leg debiting the sending account.
+     * @param debitBalance  Reads the sending account balance, called while the journal is locked.
+     * @param credit        The leg crediting the receiving account.
+     * @param creditBalance Reads the receiving account balance, called while the journal is locked.
+     * @param enqueue       Queues both legs for the database, run while the
+     *                      journal is locked so they land in the same segment.
+     */
+    public void appendTransfer(
+            final Transaction debit,
+            final LongSupplier debitBalance,
+            final Transaction credit,
+            final LongSupplier creditBalance,
+            final Runnable enqueue
+    ) {
+        this.write(debit, () -> this.encode(debit, debitBalance.getAsLong(), credit, creditBalance.getAsLong()), enqueue);
+    }
+
+    // Writes an encoded record and waits for the group commit covering it
+    private void write(final Transaction transaction, final Supplier<ByteBuffer> encoder, final Runnable enqueue) {
+        if (!this.enabled) {
+            enqueue.run();
+            return;
+        }
+
+        this.appending.incrementAndGet();
+        this.lock.lock();
+        try {
+            final ByteBuffer record;
+            try {
+                record = encoder.get();
+            } catch (final RuntimeException e) {
+                this.appending.decrementAndGet();
+                throw e;
+            }
+
+            final int size = record.remaining();
+
+            try {
+                while (record.hasRemaining()) {
+                    this.channel.write(record);
+                }
+                this.written += size;
+            } catch (final IOException e) {
+                this.plugin.getComponentLogger().error("Failed to journal transaction for account '{}'",
+                        transaction.accountId(), e);
+            } finally {
+                this.appending.decrementAndGet();
+            }
+
+            enqueue.run();
+
+            // Wait for the group commit covering this record
+            final long position = this.written;
+            this.pending.signal();
+
+            while (this.running && this.durable < position) {
+                this.synced.awaitUninterruptibly();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Seals the current segment and starts a new one.
+     *
+     * @param drain Drains the transaction queue, run while the journal is
+     *              locked so the drained transactions match the sealed segments.
+     * @return The ID of the sealed segment.
+     */
+    public long seal(final Runnable drain) {
+        if (!this.enabled) {
+            drain.run();
+            return 0;
+        }
+
+        this.lock.lock();
+        try {
+            this.forceAll();
+
+            final long sealed = this.segment;
+            try {
+                this.channel.close();
+                this.openSegment(sealed + 1);
+            } catch (final IOException e) {
+                this.plugin.getComponentLogger().error("Failed to rotate journal segment {}", sealed, e);
+            }
+
+            this.lastSealed = sealed;
+            drain.run();
+            return sealed;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the transactions of all segments up to the given one as persisted.
+     *
+     * @param segment The highest acknowledged segment.
+     */
+    public synchronized void acknowledgeTransactions(final long segment) {
+        if (!this.enabled || segment <= this.transactionCheckpoint) return;
+
+        this.transactionCheckpoint = segment;
+        this.checkpoint();
+    }
+
+    /**
+     * Marks the account balances of all segments up to the given one as persisted.
+     *
+     * @param segment The highest acknowledged segment.
+     */
+    public synchronized void acknowledgeAccounts(final long segment) {
+        if (!this.enabled || segment <= this.accountCheckpoint) return;
+
+        this.accountCheckpoint = segment;
+        this.checkpoint();
+    }
+
+    /**
+     * Reads every entry left in the journal by the previous run. Must be
+     * called before any new transactions are appended.
+     *
+     * @return The journal entries in the order they were written.
+     */
+    public List<JournalEntry> replay() {
+        final List<JournalEntry> entries = new ArrayList<>();
+        if (!this.enabled) return entries;
+
+        try {
+            for (final long id : this.listSegments()) {
+                if (id > this.lastSealed) continue;
+                this.readSegment(id, entries);
+            }
+        } catch (final IOException e) {
+            this.plugin.getComponentLogger().error("Failed to replay journal", e);
+        }
+
+        return entries;
+    }
+
+    /**
+     * Flushes and closes the journal.
+     */
+    public void close() {
+        if (!this.enabled) return;
+
+        this.lock.lock();
+        try {
+            this.running = false;
+            this.pending.signalAll();
+            this.forceAll();
+
+            this.channel.close();
+        } catch (final IOException e) {
+            this.plugin.getComponentLogger().error("Failed to close journal", e);
+        } finally {
+            this.lock.unlock();
+        }
+
+        try {
+            this.syncThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Forces appended records to disk in groups
+    private void syncLoop() {
+        while (this.running) {
+            this.lock.lock();
+            try {
+                while (this.running && this.written == this.durable) {
+                    this.pending.awaitUninterruptibly();
+                }
+            } finally {
+                this.lock.unlock();
+            }
+
+            // Let writers already on their way in join this commit, but never delay a lone writer
+            if (this.syncInterval > 0) {
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.syncInterval);
+
+                while (this.appending.get() > 0 && System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                }
+            }
+
+            this.lock.lock();
+            try {
+                this.force();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    // Forces everything appended so far to disk before the segment is rotated or closed, lock must be held
+    private void forceAll() {
+        do {
+            this.force();
+        } while (this.written != this.durable);
+    }
+
+    // Forces the current segment to disk and wakes waiting writers, lock must be held but is released for the fsync
+    private void force() {
+        while (this.forcing) {
+            this.synced.awaitUninterruptibly();
+        }
+        if (this.written == this.durable) return;
+
+        // Writers keep appending during the fsync, so only what is written now becomes durable
+        final long target = this.written;
+        final FileChannel channel = this.channel;
+        this.forcing = true;
+        this.lock.unlock();
+
+        try {
+            channel.force(false);
+        } catch (final IOException e) {
+            this.plugin.getComponentLogger().error("Failed to sync journal segment {}", this.segment, e);
+        } finally {
+            this.lock.lock();
+            this.forcing = false;
+        }
+
+        this.durable = Math.max(this.durable, target);
+        this.synced.signalAll();
+    }
+
+    // Opens a new segment for appending
+    private void openSegment(final long id) throws IOException {
+        this.channel = FileChannel.open(
+                this.segmentPath(id),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND
+        );
+        this.segment = id;
+    }
+
+    // Persists the checkpoint and deletes fully acknowledged segments
+    private void checkpoint() {
+        final Path path = this.directory.resolve(CHECKPOINT_FILE);
+        final Path temp = this.directory.resolve(CHECKPOINT_FILE + ".tmp");
+
+        try {
+            try (final FileChannel out = FileChannel.open(temp,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                out.write(ByteBuffer.allocate(16)
+                        .putLong(this.transactionCheckpoint)
+                        .putLong(this.accountCheckpoint)
+                        .flip());
+                out.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            // Truncate segments that no longer hold unacknowledged changes
+            final long truncate = Math.min(Math.min(this.transactionCheckpoint, this.accountCheckpoint), this.lastSealed);
+            for (final long id : this.listSegments()) {
+                if (id <= truncate) {
+                    Files.deleteIfExists(this.segmentPath(id));
+                }
+            }
+        } catch (final IOException e) {
+            this.plugin.getComponentLogger().error("Failed to checkpoint journal", e);
+        }
+    }
+
+    // Reads the checkpoint left by the previous run
+    private void readCheckpoint() throws IOException {
+        final Path path = this.directory.resolve(CHECKPOINT_FILE);
+        if (Files.notExists(path)) return;
+
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < 16) return;
+
+        this.transactionCheckpoint = buffer.getLong();
+        this.accountCheckpoint = buffer.getLong();
+    }
+
+    // Lists the IDs of all segments on disk in ascending order
+    private List<Long> listSegments() throws IOException {
+        try (final Stream<Path> files = Files.list(this.directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    // Resolves the path of a segment
+    private Path segmentPath(final long id) {
+        return this.directory.resolve(String.format("%016d%s", id, SEGMENT_SUFFIX));
+    }
+
+    // Encodes a record as length, checksum and payload, with the second leg of a transfer appended if present
+    private ByteBuffer encode(final Transaction first, final long firstBalance, final Transaction second, final long secondBalance) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            this.encodeLeg(out, first, firstBalance);
+
+            // Records without a trailing transfer are read as plain transactions
+            if (second != null) {
+                out.writeLong(second.transferId().getMostSignificantBits());
+                out.writeLong(second.transferId().getLeastSignificantBits());
+                this.encodeLeg(out, second, secondBalance);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        final byte[] payload = bytes.toByteArray();
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        return ByteBuffer.allocate(8 + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+    }
+
+    // Encodes one transaction and the balance after it
+    private void encodeLeg(final DataOutputStream out, final Transaction transaction, final long balance) throws IOException {
+        out.writeLong(transaction.accountId().getMostSignificantBits());
+        out.writeLong(transaction.accountId().getLeastSignificantBits());
+        out.writeUTF(transaction.accountName());
+        out.writeUTF(transaction.transactor().name());
+
+        // Amounts are written as decimals so segments survive a change of scale
+        out.writeUTF(Money.toPlainString(transaction.amount()));
+        out.writeUTF(Money.toPlainString(balance));
+    }
+
+    // Decodes all complete records of a segment, stopping at a torn write
+    private void readSegment(final long id, final List<JournalEntry> entries) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.segmentPath(id)));
+
+        while (buffer.remaining() >= 8) {
+            final int length = buffer.getInt();
+            final int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) break;
+
+            final byte[] payload = new byte[length];
+            buffer.get(payload);
+
+            final CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) break;
+
+            try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                final JournalEntry entry = this.decodeLeg(in, id, null);
+
+                if (in.available() == 0) {
+                    entries.add(entry);
+                    continue;
+                }
+
+                // Both legs of a transfer
+                final UUID transferId = new UUID(in.readLong(), in.readLong());
+                final Transaction debit = entry.transaction();
+
+                entries.add(new JournalEntry(
+                        id,
+                        new Transaction(debit.accountId(), debit.accountName(), debit.amount(), debit.transactor(), transferId),
+                        entry.balance()
+                ));
+                entries.add(this.decodeLeg(in, id, transferId));
+            }
+        }
+    }
+
+    // Decodes one transaction and the balance after it
+    private JournalEntry decodeLeg(final DataInputStream in, final long segment, final UUID transferId) throws IOException {
+        final UUID accountId = new UUID(in.readLong(), in.readLong());
+        final String accountName = in.readUTF();
+        final Transactor transactor = Transactor.valueOf(in.readUTF());
+        final long amount = Money.parse(in.readUTF());
+        final long balance = Money.parse(in.readUTF());
+
+        return new JournalEntry(
+                segment,
+                new Transaction(accountId, accountName, amount, transactor, transferId),
+                balance
+        );
+    }
+
+}
@@ -6,6 +6,7 @@ import com.spektrsoyuz.economy.model.config.CurrencyConfig;
 import lombok.RequiredArgsConstructor;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.*;
 
@@ -24,6 +25,14 @@ public final class AccountListener implements Listener {
         this.plugin.getServer().getPluginManager().registerEvents(this, this.plugin);
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerPreLogin(final AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        // Load the account before the player joins, off the main thread
+        this.plugin.getAccountController().loadAccount(event.getUniqueId()).join();
+    }
+
     @EventHandler
     public void onPlayerJoin(final PlayerJoinEvent event) {
         final Player player = event.getPlayer();
@@ -34,7 +43,7 @@ public final class AccountListener implements Listener {
 
             if (!(username.equalsIgnoreCase(account.getName()))) {
                 // Set account name to player name
-                account.setName(username);
+                this.plugin.getAccountController().renameAccount(account.getId(), username);
             }
 
             this.plugin.getAccountController().addPlayerAccount(account);
@@ -3,7 +3,10 @@ package com.spektrsoyuz.economy.listener;
 import com.spektrsoyuz.economy.EconomyPlugin;
 import com.spektrsoyuz.economy.EconomyUtils;
 import com.spektrsoyuz.economy.model.CurrencyType;
+import com.spektrsoyuz.economy.model.account.Account;
+import com.spektrsoyuz.economy.model.account.Money;
 import com.spektrsoyuz.economy.model.account.Transactor;
+import com.spektrsoyuz.economy.model.account.TransferResult;
 import com.spektrsoyuz.economy.model.config.CurrencyConfig;
 import com.spektrsoyuz.economy.model.config.OptionsConfig;
 import lombok.RequiredArgsConstructor;
@@ -17,9 +20,13 @@ import org.bukkit.event.entity.ExpBottleEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.player.PlayerExpChangeEvent;
 import org.bukkit.event.player.PlayerLevelChangeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerRespawnEvent;
 
-import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Listener class for experience events.
@@ -31,6 +38,9 @@ public final class ExperienceListener implements Listener {
 
     private final EconomyPlugin plugin;
 
+    // Scaled experience points left over below one minor unit, per player
+    private final Map<UUID, Long> pointRemainders = new ConcurrentHashMap<>();
+
     // Registers the listener
     public void register() {
         this.plugin.getServer().getPluginManager().registerEvents(this, this.plugin);
@@ -64,9 +74,15 @@ public final class ExperienceListener implements Listener {
         if (amount <= 0) return;
 
         this.plugin.getAccountController().getPlayerAccount(player).ifPresent(account -> {
-            // Convert raw XP points to a fraction of a level
-            final double levelGain = (double) amount / config.getExp().getCost();
-            final boolean success = account.addBalance(BigDecimal.valueOf(levelGain), Transactor.SERVER);
+            // Convert raw XP points to minor units of a level, carrying the remainder
+            final long cost = config.getExp().getCost();
+            final long points = Money.ofWhole(amount) + this.pointRemainders.getOrDefault(player.getUniqueId(), 0L);
+            this.pointRemainders.put(player.getUniqueId(), points % cost);
+
+            final long levelGain = points / cost;
+            if (levelGain == 0) return;
+
+            final boolean success = account.addBalance(levelGain, Transactor.SERVER);
 
             if (!success) {
                 // Transaction failed
@@ -89,7 +105,7 @@ public final class ExperienceListener implements Listener {
         final int newLevel = event.getNewLevel();
 
         this.plugin.getAccountController().getPlayerAccount(player).ifPresent(account -> {
-            final int expectedLevel = account.getBalance().intValue();
+            final int expectedLevel = (int) Money.toWhole(account.getBalance());
             if (newLevel == expectedLevel) {
                 return;
             }
@@ -98,7 +114,7 @@ public final class ExperienceListener implements Listener {
             if (newLevel < oldLevel && !player.isDead()) {
                 final int levelsSpent = oldLevel - newLevel;
 
-                final boolean success = account.subtractBalance(BigDecimal.valueOf(levelsSpent), Transactor.SERVER);
+                final boolean success = account.subtractBalance(Money.ofWhole(levelsSpent), Transactor.SERVER);
 
                 if (!success) {
                     // Transaction failed
@@ -128,18 +144,28 @@ public final class ExperienceListener implements Listener {
 
             // Subtract from player balance on death
             if (optionsConfig.isLoseBalanceOnDeath()) {
-                final BigDecimal configuredAmount = optionsConfig.getLoseBalanceOnDeathAmount();
+                final long configuredAmount = optionsConfig.getLoseBalanceOnDeathAmount();
 
                 // Get the actual amount to take
-                final BigDecimal amountToLose = account.getBalance().min(configuredAmount);
+                final long amountToLose = Math.min(account.getBalance(), configuredAmount);
 
                 // Check if the account has 0 or less
-                if (amountToLose.compareTo(BigDecimal.ZERO) <= 0) return;
+                if (amountToLose <= 0) return;
 
                 final String currency = EconomyUtils.format(this.plugin, amountToLose);
-                final boolean accountSuccess = account.subtractBalance(amountToLose, Transactor.SERVER);
 
-                if (!accountSuccess) {
+                final Player killer = event.getEntity().getKiller();
+                final Optional<Account> killerAccount = killer == null
+                        ? Optional.empty()
+                        : this.plugin.getAccountController().getPlayerAccount(killer)
+                        .filter(target -> !target.getId().equals(account.getId()));
+
+                // Move the amount to the killer as one transfer, or only subtract it
+                final boolean success = killerAccount
+                        .map(target -> account.transfer(target, amountToLose, Transactor.SERVER) == TransferResult.SUCCESS)
+                        .orElseGet(() -> account.subtractBalance(amountToLose, Transactor.SERVER));
+
+                if (!success) {
                     // Transaction failed
                     player.sendMessage(this.plugin.getConfigController().getMessage(
                             "error-transaction-failed",
@@ -150,22 +176,8 @@ public final class ExperienceListener implements Listener {
                     return;
                 }
 
-                final Player killer = event.getEntity().getKiller();
                 if (killer != null) {
-                    // Add to killer balance
-                    this.plugin.getAccountController().getPlayerAccount(killer).ifPresent(killerAccount -> {
-                        final boolean killerSuccess = killerAccount.addBalance(amountToLose, Transactor.SERVER);
-
-                        if (!killerSuccess) {
-                            // Transaction failed
-                            player.sendMessage(this.plugin.getConfigController().getMessage(
-                                    "error-transaction-failed",
-                                    this.plugin.getMiniMessage()
-                            ));
-                            EconomyUtils.playErrorSound(player);
-                            return;
-                        }
-
+                    killerAccount.ifPresent(target -> {
                         killer.sendMessage(this.plugin.getConfigController().getMessage(
                                 "economy-death-killer",
                                 this.plugin.getMiniMessage(),
@@ -204,4 +216,10 @@ public final class ExperienceListener implements Listener {
         this.plugin.getAccountController().updateExp(event.getPlayer());
     }
 
+    @EventHandler
+    public void onPlayerQuit(final PlayerQuitEvent event) {
+        // Drop the carried experience remainder
+        this.pointRemainders.remove(event.getPlayer().getUniqueId());
+    }
+
 }
@@ -3,6 +3,7 @@ package com.spektrsoyuz.economy.listener;
 import com.spektrsoyuz.economy.EconomyPlugin;
 import com.spektrsoyuz.economy.EconomyUtils;
 import com.spektrsoyuz.economy.model.CurrencyType;
+import com.spektrsoyuz.economy.model.account.Money;
 import com.spektrsoyuz.economy.model.account.Transactor;
 import com.spektrsoyuz.economy.model.config.CurrencyConfig;
 import lombok.RequiredArgsConstructor;
@@ -18,8 +19,6 @@ import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
 
-import java.math.BigDecimal;
-
 /**
  * Listener class for inventory events.
  *
@@ -194,9 +193,10 @@ public final class InventoryListener implements Listener {
             final ItemStack remainingCursor = cursorStack.clone();
             remainingCursor.setAmount(remainingAmount);
 
-            // Update the cursor on the next tick to prevent synchronization issues
-            this.plugin.getServer().getScheduler().runTask(this.plugin,
-                    () -> player.setItemOnCursor(remainingAmount <= 0 ? null : remainingCursor)
+            // Update the cursor on the player's next tick to prevent synchronization issues
+            player.getScheduler().run(this.plugin,
+                    task -> player.setItemOnCursor(remainingAmount <= 0 ? null : remainingCursor),
+                    null
             );
 
             this.plugin.getEconomyController().depositItem(player, account, itemStack, valuePerItem);
@@ -225,9 +225,9 @@ public final class InventoryListener implements Listener {
             // Handle transaction
             final int count = item.getAmount();
             final int totalValue = count * valuePerItem;
-            final BigDecimal valueBD = BigDecimal.valueOf(totalValue);
+            final long value = Money.ofWhole(totalValue);
 
-            final boolean success = account.addBalance(valueBD, Transactor.SERVER);
+            final boolean success = account.addBalance(value, Transactor.SERVER);
 
             if (!success) {
                 this.plugin.getEconomyController().handleTransactionFailure(player);
@@ -242,7 +242,7 @@ public final class InventoryListener implements Listener {
                     String.format("command-deposit-%s", config.getType().name().toLowerCase()),
                     this.plugin.getMiniMessage(),
                     Placeholder.parsed("amount", String.valueOf(totalValue)),
-                    Placeholder.parsed("currency", EconomyUtils.format(this.plugin, valueBD))
+                    Placeholder.parsed("currency", EconomyUtils.format(this.plugin, value))
             ));
 
             player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 1.0f, 1.0f);
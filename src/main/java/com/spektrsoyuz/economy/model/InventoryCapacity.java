@@ -0,0 +1,128 @@
+package com.spektrsoyuz.economy.model;
+
+import com.spektrsoyuz.economy.model.config.ItemValueTable;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+/**
+ * Model class for the room left in an inventory for currency items, taken
+ * from a single scan of its storage contents. It counts the empty slots and,
+ * per denomination, the headroom left in partial stacks that a plain item of
+ * that material would merge into. Adding items is then simulated with
+ * arithmetic, following the order {@code Inventory#addItem} fills slots in:
+ * partial stacks first, then empty slots.
+ * <p>
+ * Instances are mutable and meant to be used on the thread that owns the
+ * inventory.
+ *
+ * @since 1.1.0
+ */
+public final class InventoryCapacity {
+
+    private final List<ItemValueTable.Denomination> denominations;
+    private final int[] headroom;
+    private int emptySlots;
+
+    // Constructor
+    private InventoryCapacity(final List<ItemValueTable.Denomination> denominations, final int[] headroom, final int emptySlots) {
+        this.denominations = denominations;
+        this.headroom = headroom;
+        this.emptySlots = emptySlots;
+    }
+
+    /**
+     * Scans storage contents for the room left for the given denominations.
+     *
+     * @param contents      The storage contents of the inventory.
+     * @param denominations The currency items that may be added.
+     * @return The capacity of the inventory.
+     */
+    public static InventoryCapacity scan(final ItemStack[] contents, final List<ItemValueTable.Denomination> denominations) {
+        final InventoryCapacity capacity = new InventoryCapacity(denominations, new int[denominations.size()], 0);
+
+        for (final ItemStack item : contents) {
+            if (item == null || item.getType().isAir()) {
+                capacity.emptySlots++;
+                continue;
+            }
+
+            // Only plain stacks merge with the plain items handed out
+            if (item.hasItemMeta()) continue;
+
+            final int index = capacity.indexOf(item.getType());
+            if (index >= 0) {
+                capacity.headroom[index] += Math.max(0, item.getMaxStackSize() - item.getAmount());
+            }
+        }
+
+        return capacity;
+    }
+
+    /**
+     * Creates a capacity from known room rather than an inventory scan.
+     *
+     * @param denominations The currency items that may be added.
+     * @param headroom      The room left in partial stacks, per denomination.
+     * @param emptySlots    The number of empty slots.
+     * @return The capacity.
+     */
+    public static InventoryCapacity of(final List<ItemValueTable.Denomination> denominations, final int[] headroom, final int emptySlots) {
+        return new InventoryCapacity(denominations, headroom.clone(), emptySlots);
+    }
+
+    // Gets the number of empty slots left
+    public int getEmptySlots() {
+        return this.emptySlots;
+    }
+
+    // Gets the room left in partial stacks of a material
+    public int getHeadroom(final Material material) {
+        final int index = this.indexOf(material);
+        return index >= 0 ? this.headroom[index] : 0;
+    }
+
+    // Copies the capacity, for trying out additions without consuming this one
+    public InventoryCapacity copy() {
+        return new InventoryCapacity(this.denominations, this.headroom.clone(), this.emptySlots);
+    }
+
+    /**
+     * Simulates adding items, consuming the room they take.
+     *
+     * @param material The item material.
+     * @param count    The number of items to add.
+     * @return The number of items that fit, at most {@code count}.
+     */
+    public int add(final Material material, final int count) {
+        if (count <= 0) return 0;
+
+        final int index = this.indexOf(material);
+        final int maxStackSize = index >= 0 ? this.denominations.get(index).maxStackSize() : material.getMaxStackSize();
+
+        // Top up partial stacks first
+        final int merged = index >= 0 ? Math.min(count, this.headroom[index]) : 0;
+        if (index >= 0) this.headroom[index] -= merged;
+
+        // Then start new stacks in empty slots
+        final int remaining = count - merged;
+        final int slots = Math.min(this.emptySlots, (remaining + maxStackSize - 1) / maxStackSize);
+        final int placed = (int) Math.min(remaining, (long) slots * maxStackSize);
+
+        this.emptySlots -= slots;
+        if (index >= 0) this.headroom[index] += slots * maxStackSize - placed;
+
+        return merged + placed;
+    }
+
+    // Gets the index of a denomination by material, or -1 if it is not one
+    private int indexOf(final Material material) {
+        for (int i = 0; i < this.denominations.size(); i++) {
+            if (this.denominations.get(i).material() == material) return i;
+        }
+
+        return -1;
+    }
+
+}
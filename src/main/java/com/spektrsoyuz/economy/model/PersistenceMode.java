@@ -0,0 +1,11 @@
+package com.spektrsoyuz.economy.model;
+
+/**
+ * Model enum for how account balances are written to the database.
+ *
+ * @since 1.1.0
+ */
+public enum PersistenceMode {
+    SNAPSHOT,
+    DELTA
+}
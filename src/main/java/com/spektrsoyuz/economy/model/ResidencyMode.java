@@ -0,0 +1,11 @@
+package com.spektrsoyuz.economy.model;
+
+/**
+ * Model enum for which accounts are kept in memory.
+ *
+ * @since 1.1.0
+ */
+public enum ResidencyMode {
+    EAGER,
+    LAZY
+}
@@ -0,0 +1,11 @@
+package com.spektrsoyuz.economy.model;
+
+/**
+ * Model enum for a storage type.
+ *
+ * @since 1.1.0
+ */
+public enum StorageType {
+    MYSQL,
+    SQLITE
+}
@@ -1,37 +1,84 @@
 package com.spektrsoyuz.economy.model.account;
 
 import com.spektrsoyuz.economy.EconomyPlugin;
+import com.spektrsoyuz.economy.model.data.MinorUnits;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 
-import java.math.BigDecimal;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 /**
- * Model class for an economy account.
+ * Model class for an economy account. Balances are held in minor units,
+ * see {@link Money}.
  *
  * @since 1.0.0
  */
 @Getter
 public final class Account {
 
+    private static final VarHandle BALANCE;
+
+    // Stored balance of an account that has never been stored
+    private static final long NOT_STORED = Long.MIN_VALUE;
+
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(Account.class, "balance", long.class);
+        } catch (final ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final UUID id;
     private final Consumer<Account> accountConsumer;
-    private final Consumer<Transaction> transactionConsumer;
-    private BigDecimal balance;
+    private final BiConsumer<Transaction, LongSupplier> transactionConsumer;
+    private final Consumer<Transfer> transferConsumer;
+    private volatile long balance;
     private String name;
-    private boolean frozen;
+    private volatile AccountKind kind;
+    private volatile String displayName;
+    private volatile boolean frozen;
     private boolean autoDeposit;
     private boolean autoWithdraw;
 
+    // Balance last written to the database, or NOT_STORED if the account has never been stored
+    @Getter(AccessLevel.NONE)
+    private volatile long storedBalance = NOT_STORED;
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean metadataDirty = new AtomicBoolean();
+
+    // Set once the account is deleted, so a late flush does not write its row back
+    @Getter(AccessLevel.NONE)
+    private volatile boolean deleted;
+
+    // Set under the transfer lock once the account leaves the cache, so changes to this copy are refused
+    @Getter(AccessLevel.NONE)
+    private volatile boolean evicted;
+
+    // Last time the account was looked up, for idle eviction
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    // Held by balance changes and eviction, and by transfers, always taken in account ID order
+    @Getter(AccessLevel.NONE)
+    private final ReentrantLock transferLock = new ReentrantLock();
+
     /**
      * Constructs a new Account and initializes the update consumers.
      *
      * @param plugin       The economy plugin instance.
      * @param id           The unique identifier for the account.
      * @param name         The internal name of the account.
-     * @param balance      The starting balance.
+     * @param balance      The starting balance, in minor units.
+     * @param kind         The kind of owner, or null if not yet classified.
      * @param frozen       The frozen status (defaults to false if null).
      * @param autoDeposit  The auto deposit status (defaults to false if null).
      * @param autoWithdraw The auto withdraw status (defaults to false if null).
@@ -41,7 +88,8 @@ public final class Account {
             final EconomyPlugin plugin,
             final UUID id,
             final String name,
-            final BigDecimal balance,
+            final long balance,
+            final AccountKind kind,
             final Boolean frozen,
             final Boolean autoDeposit,
             final Boolean autoWithdraw
@@ -49,37 +97,40 @@ public final class Account {
         this.id = id;
         this.name = name;
         this.balance = balance;
+        this.kind = kind;
+        this.displayName = displayName(kind, name);
         this.frozen = frozen != null && frozen;
         this.autoDeposit = autoDeposit != null && autoDeposit;
         this.autoWithdraw = autoWithdraw != null && autoWithdraw;
 
         this.accountConsumer = plugin.getAccountQueueTask()::queue;
         this.transactionConsumer = plugin.getTransactionQueueTask()::queue;
+        this.transferConsumer = plugin.getTransactionQueueTask()::queueTransfer;
     }
 
     /**
-     * Translates the internal name into a user-friendly display string.
+     * Translates an internal name into a user-friendly display string.
+     * Unclassified accounts are displayed by the kind their name implies.
      *
+     * @param kind The kind of owner, or null if not yet classified.
+     * @param name The internal name.
      * @return A formatted display name.
      */
-    public String getDisplayName() {
-        if (this.name.equals("tax")) {
-            return "Server (tax)";
-        }
-
-        if (this.name.startsWith("town-")) {
-            return this.name
-                    .replaceFirst("town-", "")
-                    .replace("_", " ");
-        }
+    private static String displayName(final AccountKind kind, final String name) {
+        final AccountKind effective = kind != null ? kind : AccountKind.ofName(name);
+        return effective == null || name == null ? name : effective.displayName(name);
+    }
 
-        if (this.name.startsWith("nation-")) {
-            return this.name
-                    .replaceFirst("nation-", "")
-                    .replace("_", " ");
-        }
+    /**
+     * Sets the kind of owner behind the account.
+     *
+     * @param kind The new kind.
+     */
+    public void setKind(final AccountKind kind) {
+        this.kind = kind;
+        this.displayName = displayName(kind, this.name);
 
-        return this.name;
+        this.saveMetadata();
     }
 
     /**
@@ -91,38 +142,47 @@ public final class Account {
     public boolean setName(final String name) {
         if (this.frozen) return false;
         this.name = name;
+        this.displayName = displayName(this.kind, name);
 
-        this.saveAccount();
+        this.saveMetadata();
         return true;
     }
 
     /**
      * Sets the account balance to a specific value and logs the transaction.
      *
-     * @param balance    The new balance.
+     * @param balance    The new balance, in minor units.
      * @param transactor The actor responsible for the change.
-     * @return {@code true} if the balance was updated.
+     * @return {@code true} if the balance was updated, {@code false} if the
+     * account is frozen or the balance is beyond {@link Money#maxBalance()}.
      */
-    public boolean setBalance(final BigDecimal balance, final Transactor transactor) {
-        if (this.frozen) return false;
-        final BigDecimal current = this.balance;
-        this.balance = balance;
+    public boolean setBalance(final long balance, final Transactor transactor) {
+        if (Math.abs(balance) > Money.maxBalance()) return false;
+
+        final long previous;
+        this.transferLock.lock();
+        try {
+            if (this.frozen || this.evicted) return false;
+            previous = (long) BALANCE.getAndSet(this, balance);
+        } finally {
+            this.transferLock.unlock();
+        }
 
         this.saveAccount();
-        this.saveTransaction(balance.subtract(current), transactor);
+        this.saveTransaction(balance - previous, transactor);
         return true;
     }
 
     /**
      * Increments the account balance by a specified amount.
      *
-     * @param amount     The amount to add.
+     * @param amount     The amount to add, in minor units.
      * @param transactor The actor responsible for the change.
-     * @return {@code true} if the balance was updated.
+     * @return {@code true} if the balance was updated, {@code false} if the
+     * account is frozen or the balance would exceed {@link Money#maxBalance()}.
      */
-    public boolean addBalance(final BigDecimal amount, final Transactor transactor) {
-        if (this.frozen) return false;
-        this.balance = this.balance.add(amount);
+    public boolean addBalance(final long amount, final Transactor transactor) {
+        if (!this.change(() -> this.tryDeposit(amount, Money.maxBalance()))) return false;
 
         this.saveAccount();
         this.saveTransaction(amount, transactor);
@@ -132,19 +192,174 @@ public final class Account {
     /**
      * Decrements the account balance by a specified amount.
      *
-     * @param amount     The amount to subtract.
+     * @param amount     The amount to subtract, in minor units.
      * @param transactor The actor responsible for the change.
-     * @return {@code true} if the balance was updated.
+     * @return {@code true} if the balance was updated, {@code false} if the
+     * account is frozen or the balance would fall below {@code -Money.maxBalance()}.
      */
-    public boolean subtractBalance(final BigDecimal amount, final Transactor transactor) {
-        if (this.frozen) return false;
-        this.balance = this.balance.subtract(amount);
+    public boolean subtractBalance(final long amount, final Transactor transactor) {
+        if (!this.change(() -> this.tryWithdraw(amount, -Money.maxBalance()))) return false;
+
+        this.saveAccount();
+        this.saveTransaction(-amount, transactor);
+        return true;
+    }
+
+    /**
+     * Withdraws an amount only if the balance covers it. The check and the
+     * withdrawal are a single atomic update, so concurrent withdrawals can
+     * never overdraw the account.
+     *
+     * @param amount     The amount to withdraw, in minor units.
+     * @param transactor The actor responsible for the change.
+     * @return {@code true} if the amount was withdrawn, {@code false} if the
+     * account is frozen or the balance is too low.
+     */
+    public boolean withdrawIfAtLeast(final long amount, final Transactor transactor) {
+        if (!this.change(() -> this.tryWithdraw(amount, 0))) return false;
 
         this.saveAccount();
-        this.saveTransaction(amount.negate(), transactor);
+        this.saveTransaction(-amount, transactor);
+        return true;
+    }
+
+    /**
+     * Deposits an amount only if the resulting balance stays within a cap.
+     * The check and the deposit are a single atomic update.
+     *
+     * @param amount     The amount to deposit, in minor units.
+     * @param cap        The largest balance allowed after the deposit, in minor units.
+     * @param transactor The actor responsible for the change.
+     * @return {@code true} if the amount was deposited, {@code false} if the
+     * account is frozen or the deposit would exceed the cap.
+     */
+    public boolean depositCapped(final long amount, final long cap, final Transactor transactor) {
+        if (!this.change(() -> this.tryDeposit(amount, cap))) return false;
+
+        this.saveAccount();
+        this.saveTransaction(amount, transactor);
         return true;
     }
 
+    /**
+     * Moves an amount from this account to another as a single transfer.
+     * Both accounts are locked in ID order, so opposing transfers cannot
+     * deadlock, and both legs are journaled and persisted as one linked
+     * record.
+     *
+     * @param to         The account to credit.
+     * @param amount     The amount to move, in minor units.
+     * @param transactor The actor responsible for the transfer.
+     * @return The outcome of the transfer.
+     */
+    public TransferResult transfer(final Account to, final long amount, final Transactor transactor) {
+        if (amount <= 0) return TransferResult.INVALID_AMOUNT;
+        if (this.id.equals(to.id)) return TransferResult.SAME_ACCOUNT;
+
+        final boolean ordered = this.id.compareTo(to.id) < 0;
+        final ReentrantLock first = ordered ? this.transferLock : to.transferLock;
+        final ReentrantLock second = ordered ? to.transferLock : this.transferLock;
+
+        first.lock();
+        second.lock();
+        try {
+            if (this.evicted || to.evicted) return TransferResult.ACCOUNT_NOT_FOUND;
+            if (this.frozen || to.frozen) return TransferResult.FROZEN;
+            if (!this.tryWithdraw(amount, 0)) return TransferResult.INSUFFICIENT_BALANCE;
+
+            // Nothing has been recorded yet, so a failed credit is simply undone
+            if (!to.tryDeposit(amount, Money.maxBalance())) {
+                this.updateBalance(amount);
+                return TransferResult.BALANCE_LIMIT;
+            }
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+
+        this.saveAccount();
+        to.saveAccount();
+
+        // Journal outside the locks, the journal reads both balances in append order
+        this.transferConsumer.accept(new Transfer(UUID.randomUUID(), this, to, amount, transactor));
+        return TransferResult.SUCCESS;
+    }
+
+    /**
+     * Applies a balance change under the account lock, so it cannot land on
+     * a copy that is being evicted.
+     *
+     * @param change The change, returning whether it was applied.
+     * @return {@code true} if the account is neither frozen nor evicted and the change was applied.
+     */
+    private boolean change(final BooleanSupplier change) {
+        this.transferLock.lock();
+        try {
+            return !this.frozen && !this.evicted && change.getAsBoolean();
+        } finally {
+            this.transferLock.unlock();
+        }
+    }
+
+    /**
+     * Subtracts an amount from the balance if the result stays at or above a floor.
+     *
+     * @param amount The amount to subtract, in minor units.
+     * @param floor  The smallest balance allowed, in minor units.
+     * @return {@code true} if the amount was subtracted.
+     */
+    private boolean tryWithdraw(final long amount, final long floor) {
+        long current;
+        do {
+            current = this.balance;
+            if (current < floor + amount) return false;
+        } while (!BALANCE.weakCompareAndSet(this, current, current - amount));
+        return true;
+    }
+
+    /**
+     * Adds an amount to the balance if the result stays within a cap.
+     *
+     * @param amount The amount to add, in minor units.
+     * @param cap    The largest balance allowed, in minor units.
+     * @return {@code true} if the amount was added.
+     */
+    private boolean tryDeposit(final long amount, final long cap) {
+        long current;
+        do {
+            current = this.balance;
+            if (current > cap - amount) return false;
+        } while (!BALANCE.weakCompareAndSet(this, current, current + amount));
+        return true;
+    }
+
+    /**
+     * Adds an amount to the balance with a compare-and-set loop, so
+     * concurrent updates are never lost.
+     *
+     * @param amount The amount to add in minor units (positive or negative).
+     */
+    private void updateBalance(final long amount) {
+        long current;
+        do {
+            current = this.balance;
+        } while (!BALANCE.weakCompareAndSet(this, current, current + amount));
+    }
+
+    /**
+     * Restores a balance recorded by the journal without logging a new
+     * transaction, and queues the account for persistence. Only the
+     * difference from the stored balance is written in delta mode, so
+     * replaying an entry that already reached the database changes nothing.
+     *
+     * @param balance The balance to restore, in minor units.
+     */
+    public void restoreBalance(final long balance) {
+        this.balance = balance;
+
+        this.saveAccount();
+    }
+
     /**
      * Sets the frozen status of the account, preventing further modifications.
      *
@@ -153,7 +368,7 @@ public final class Account {
     public void setFrozen(final boolean frozen) {
         this.frozen = frozen;
 
-        this.saveAccount();
+        this.saveMetadata();
     }
 
     /**
@@ -162,7 +377,7 @@ public final class Account {
     public void freeze() {
         this.frozen = true;
 
-        this.saveAccount();
+        this.saveMetadata();
     }
 
     /**
@@ -171,7 +386,7 @@ public final class Account {
     public void unfreeze() {
         this.frozen = false;
 
-        this.saveAccount();
+        this.saveMetadata();
     }
 
     /**
@@ -182,7 +397,7 @@ public final class Account {
     public void setAutoDeposit(final boolean autoDeposit) {
         this.autoDeposit = autoDeposit;
 
-        this.saveAccount();
+        this.saveMetadata();
     }
 
     /**
@@ -193,7 +408,7 @@ public final class Account {
     public void setAutoWithdraw(final boolean autoWithdraw) {
         this.autoWithdraw = autoWithdraw;
 
-        this.saveAccount();
+        this.saveMetadata();
     }
 
     /**
@@ -204,14 +419,132 @@ public final class Account {
     }
 
     /**
-     * Creates and queues a transaction record for persistence.
+     * Marks the name and flags as changed and queues the account for persistence.
+     */
+    private void saveMetadata() {
+        this.metadataDirty.set(true);
+
+        this.saveAccount();
+    }
+
+    /**
+     * Checks whether the account has a row in the database.
+     *
+     * @return {@code true} if the account has been stored.
+     */
+    public boolean isStored() {
+        return this.storedBalance != NOT_STORED;
+    }
+
+    /**
+     * Records the balance that is now held by the database.
+     *
+     * @param balance The stored balance, in minor units.
+     */
+    public void markStored(final long balance) {
+        this.storedBalance = balance;
+    }
+
+    /**
+     * Gets the net change in balance since the balance was last stored.
+     *
+     * @return A new {@link Delta} for this account.
+     */
+    public Delta createDelta() {
+        final long balance = this.balance;
+        return new Delta(this.id, balance - this.storedBalance, balance);
+    }
+
+    /**
+     * Records that a balance delta has been applied to the database.
+     *
+     * @param delta The applied delta.
+     */
+    public void applyDelta(final Delta delta) {
+        this.storedBalance = this.storedBalance + delta.amount();
+    }
+
+    /**
+     * Clears the pending name and flag changes.
+     *
+     * @return {@code true} if the name or flags changed since the last call.
+     */
+    public boolean takeMetadataDirty() {
+        return this.metadataDirty.getAndSet(false);
+    }
+
+    /**
+     * Marks the name and flags as changed without queueing the account.
+     */
+    public void markMetadataDirty() {
+        this.metadataDirty.set(true);
+    }
+
+    /**
+     * Checks whether every change to the account has been written to the database.
+     *
+     * @return {@code true} if the stored row matches the account.
+     */
+    public boolean isClean() {
+        return this.storedBalance != NOT_STORED
+                && this.balance == this.storedBalance
+                && !this.metadataDirty.get();
+    }
+
+    /**
+     * Marks the account as deleted, so pending flushes no longer recreate its row.
+     */
+    public void markDeleted() {
+        this.deleted = true;
+    }
+
+    /**
+     * Checks whether the account has been deleted.
      *
-     * @param amount     The change in balance (positive or negative).
+     * @return {@code true} if the account was deleted.
+     */
+    public boolean isDeleted() {
+        return this.deleted;
+    }
+
+    /**
+     * Marks the account as evicted if it can still leave memory, holding the
+     * account lock so no balance change lands in between. A later load reads
+     * the stored row, so balance changes to this copy are refused from then on.
+     *
+     * @param evictable Checks whether the account can leave memory without losing changes.
+     * @return {@code true} if the account is now evicted.
+     */
+    public boolean evictIf(final BooleanSupplier evictable) {
+        this.transferLock.lock();
+        try {
+            if (!evictable.getAsBoolean()) return false;
+
+            this.evicted = true;
+            return true;
+        } finally {
+            this.transferLock.unlock();
+        }
+    }
+
+    /**
+     * Records that the account was just accessed.
+     */
+    public void touch() {
+        this.lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * Creates a transaction record, journals it and queues it for persistence.
+     * The journal reads the balance when it writes the record, so the last
+     * journaled balance reflects every mutation journaled before it.
+     *
+     * @param amount     The change in balance in minor units (positive or negative).
      * @param transactor The actor responsible for the change.
      */
-    private void saveTransaction(final BigDecimal amount, final Transactor transactor) {
+    private void saveTransaction(final long amount, final Transactor transactor) {
         final Transaction transaction = new Transaction(this.id, this.name, amount, transactor);
-        this.transactionConsumer.accept(transaction);
+        this.transactionConsumer.accept(transaction, this::getBalance);
     }
 
     /**
@@ -226,7 +559,29 @@ public final class Account {
                 this.balance,
                 this.frozen,
                 this.autoDeposit,
-                this.autoWithdraw
+                this.autoWithdraw,
+                this.kind
+        );
+    }
+
+    /**
+     * Creates an immutable snapshot of the account with the balance last
+     * written to the database, rather than any unsaved balance.
+     *
+     * @return A new {@link Memento}, or {@code null} if the account has never been stored.
+     */
+    public Memento createStoredMemento() {
+        final long stored = this.storedBalance;
+        if (stored == NOT_STORED) return null;
+
+        return new Memento(
+                this.id,
+                this.name,
+                stored,
+                this.frozen,
+                this.autoDeposit,
+                this.autoWithdraw,
+                this.kind
         );
     }
 
@@ -237,21 +592,46 @@ public final class Account {
     public record Memento(
             UUID id,
             String name,
-            BigDecimal balance,
+            @MinorUnits long balance,
             boolean frozen,
             boolean autoDeposit,
-            boolean autoWithdraw
+            boolean autoWithdraw,
+            AccountKind kind
     ) {
+        // Copies the memento with another balance
+        public Memento withBalance(final long balance) {
+            return new Memento(id, name, balance, frozen, autoDeposit, autoWithdraw, kind);
+        }
+
         public Account toAccount(final EconomyPlugin plugin) {
-            return new Account(
+            final Account account = new Account(
                     plugin,
                     id,
                     name,
                     balance,
+                    kind,
                     frozen,
                     autoDeposit,
                     autoWithdraw
             );
+
+            // Mementos are read from the database, so the balance is already stored
+            account.markStored(balance);
+            return account;
+        }
+    }
+
+    /**
+     * The net change in an account's balance between two flushes, and the
+     * balance it brings the stored row to.
+     */
+    public record Delta(
+            UUID id,
+            @MinorUnits long amount,
+            @MinorUnits long balance
+    ) {
+        public boolean isZero() {
+            return amount == 0;
         }
     }
 
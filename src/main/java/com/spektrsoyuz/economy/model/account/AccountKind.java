@@ -0,0 +1,61 @@
+package com.spektrsoyuz.economy.model.account;
+
+/**
+ * Model enum for the kind of owner behind an economy account. The kind is
+ * decided once, when the account is created or first migrated, and stored
+ * with the account.
+ *
+ * @since 1.1.0
+ */
+public enum AccountKind {
+    PLAYER,
+    TOWN,
+    NATION,
+    SERVER,
+    PLUGIN;
+
+    // Name of the server tax account
+    private static final String TAX = "tax";
+
+    private static final String TOWN_PREFIX = "town-";
+    private static final String NATION_PREFIX = "nation-";
+
+    /**
+     * Classifies an account by the naming conventions of the plugins that
+     * create non-player accounts.
+     *
+     * @param name The account name.
+     * @return The kind implied by the name, or {@code null} if the name implies none.
+     */
+    public static AccountKind ofName(final String name) {
+        if (name == null) return null;
+        if (name.equals(TAX)) return SERVER;
+        if (name.startsWith(TOWN_PREFIX)) return TOWN;
+        if (name.startsWith(NATION_PREFIX)) return NATION;
+
+        return null;
+    }
+
+    /**
+     * Translates an account name into a user-friendly display string for
+     * accounts of this kind.
+     *
+     * @param name The account name.
+     * @return A formatted display name.
+     */
+    public String displayName(final String name) {
+        return switch (this) {
+            case SERVER -> name.equals(TAX) ? "Server (tax)" : name;
+            case TOWN -> strip(name, TOWN_PREFIX);
+            case NATION -> strip(name, NATION_PREFIX);
+            default -> name;
+        };
+    }
+
+    // Removes a name prefix and turns underscores into spaces
+    private static String strip(final String name, final String prefix) {
+        final String stripped = name.startsWith(prefix) ? name.substring(prefix.length()) : name;
+        return stripped.replace('_', ' ');
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.spektrsoyuz.economy.model.account;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+/**
+ * Model class for a case-insensitive index of account names. Exact lookups
+ * go through a hash map and prefix lookups through a sorted map of the same
+ * lower-cased names. When several accounts share a name, the most recently
+ * indexed one wins.
+ *
+ * @since 1.1.0
+ */
+public final class AccountNameIndex {
+
+    private final Map<String, Entry> exact = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<String, Entry> sorted = new ConcurrentSkipListMap<>();
+
+    /**
+     * Looks up the account ID indexed under a name.
+     *
+     * @param name The account name, in any case.
+     * @return An {@link Optional} containing the account ID if indexed.
+     */
+    public Optional<UUID> get(final String name) {
+        final Entry entry = this.exact.get(key(name));
+        return entry == null ? Optional.empty() : Optional.of(entry.id());
+    }
+
+    /**
+     * Collects the entries whose names start with a prefix, in name order.
+     * Only the names under the prefix are visited, so the cost depends on
+     * the number of matches rather than the number of accounts.
+     *
+     * @param prefix The lower-cased name prefix.
+     * @param limit  The maximum number of entries to collect.
+     * @param filter The filter entries must pass to be collected.
+     * @return The matching entries.
+     */
+    public List<Entry> complete(final String prefix, final int limit, final Predicate<Entry> filter) {
+        final List<Entry> matches = new ArrayList<>(Math.min(limit, 16));
+
+        for (final Map.Entry<String, Entry> entry : this.sorted.tailMap(prefix).entrySet()) {
+            if (matches.size() >= limit || !entry.getKey().startsWith(prefix)) break;
+            if (filter.test(entry.getValue())) matches.add(entry.getValue());
+        }
+
+        return matches;
+    }
+
+    // Indexes an account under its current name and kind
+    public void add(final Account account) {
+        this.put(account, account.getName());
+    }
+
+    // Removes an account's current name, unless another account has since taken it
+    public void remove(final Account account) {
+        this.remove(account.getId(), account.getName());
+    }
+
+    // Removes a name, unless another account has since taken it
+    public void remove(final UUID id, final String name) {
+        if (name == null) return;
+
+        // Both maps change inside the hash map's per-key lock
+        this.exact.computeIfPresent(key(name), (key, entry) -> {
+            if (!entry.id().equals(id)) return entry;
+
+            this.sorted.remove(key, entry);
+            return null;
+        });
+    }
+
+    /**
+     * Moves an account from its old name to its current one. The new name
+     * is indexed before the old one is removed, so a concurrent lookup by
+     * either name never misses an account that is being renamed.
+     *
+     * @param account The renamed account.
+     * @param oldName The previous account name.
+     */
+    public void rename(final Account account, final String oldName) {
+        final String newName = account.getName();
+
+        this.put(account, newName);
+        if (oldName != null && !key(oldName).equals(key(newName))) this.remove(account.getId(), oldName);
+    }
+
+    // Clears the index
+    public void clear() {
+        this.exact.clear();
+        this.sorted.clear();
+    }
+
+    // Indexes an account under a name
+    private void put(final Account account, final String name) {
+        if (name == null) return;
+
+        // Both maps change inside the hash map's per-key lock
+        this.exact.compute(key(name), (key, previous) -> {
+            final Entry entry = new Entry(account.getId(), name, account.getKind());
+
+            this.sorted.put(key, entry);
+            return entry;
+        });
+    }
+
+    // Gets the index key for a name
+    private static String key(final String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * An indexed account name and the kind of the account behind it.
+     */
+    public record Entry(UUID id, String name, AccountKind kind) {
+
+    }
+
+}
@@ -0,0 +1,378 @@
+package com.spektrsoyuz.economy.model.account;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Model class for the account leaderboard, ordered by balance (highest
+ * first), then name, then ID. Standings are kept in a treap whose nodes
+ * carry subtree sizes, so updates, rank lookups and page reads each take
+ * O(log n) time, plus the size of the page.
+ * <p>
+ * Balance changes only note the account in a concurrent map, so the
+ * threads making them never wait on the treap. The noted accounts are
+ * placed at their balance at that point by the next read, or by
+ * {@link #flush()} off the tick thread. The version only moves when a
+ * standing moves within the ranks that have been read, so rendered pages
+ * outlive changes further down.
+ *
+ * @since 1.1.0
+ */
+public final class Leaderboard {
+
+    private static final Comparator<Standing> ORDER = Comparator
+            .comparingLong(Standing::balance).reversed()
+            .thenComparing(Standing::name, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Standing::id);
+
+    private final Predicate<Account> ranked;
+    private final Map<UUID, Standing> standings = new HashMap<>();
+    private Node root;
+    private long version;
+    private boolean seeded;
+
+    // Accounts changed since the last read, or empty to take one off
+    private final Map<UUID, Optional<Account>> pending = new ConcurrentHashMap<>();
+
+    // Deepest rank read so far; standings moving below it leave every read rank as it was
+    private int watched;
+
+    // Number of top standings known to match the database, all of them unless only a window was seeded
+    private int complete = Integer.MAX_VALUE;
+
+    /**
+     * Creates an empty leaderboard.
+     *
+     * @param ranked Checks whether an account qualifies for the leaderboard when it is placed.
+     */
+    public Leaderboard(final Predicate<Account> ranked) {
+        this.ranked = ranked;
+    }
+
+    /**
+     * Notes that an account changed, so the next read places it at its
+     * balance and name then, or takes it off if it no longer qualifies.
+     *
+     * @param account The account to place.
+     */
+    public void update(final Account account) {
+        this.pending.put(account.getId(), Optional.of(account));
+    }
+
+    /**
+     * Notes that an account is to be taken off the leaderboard.
+     *
+     * @param id The UUID of the account.
+     */
+    public void remove(final UUID id) {
+        this.pending.put(id, Optional.empty());
+    }
+
+    /**
+     * Applies the changes noted since the last read.
+     */
+    public synchronized void flush() {
+        if (this.pending.isEmpty()) return;
+
+        for (final UUID id : this.pending.keySet()) {
+            final Optional<Account> change = this.pending.remove(id);
+            if (change == null) continue;
+
+            this.place(id, change.filter(this.ranked).map(Standing::of).orElse(null));
+        }
+    }
+
+    /**
+     * Takes an account that left memory off the leaderboard, unless its
+     * standing is within the complete window, which must keep matching the
+     * database.
+     *
+     * @param id The UUID of the account.
+     */
+    public synchronized void evict(final UUID id) {
+        final OptionalInt rank = this.rank(id);
+        if (rank.isPresent() && rank.getAsInt() > this.completeSize()) this.place(id, null);
+    }
+
+    /**
+     * Replaces every standing with those of the given accounts.
+     *
+     * @param accounts The accounts to place.
+     */
+    public synchronized void rebuild(final Collection<Account> accounts) {
+        this.standings.clear();
+        this.root = null;
+
+        for (final Account account : accounts) {
+            final Standing standing = Standing.of(account);
+            if (this.standings.put(standing.id(), standing) == null) {
+                this.root = insert(this.root, new Node(standing));
+            }
+        }
+
+        this.seeded = true;
+        this.version++;
+    }
+
+    /**
+     * Checks whether the leaderboard has been filled since startup.
+     *
+     * @return {@code true} if {@link #rebuild(Collection)} has run.
+     */
+    public synchronized boolean isSeeded() {
+        return this.seeded;
+    }
+
+    /**
+     * Sets how many of the top standings are known to match the database,
+     * for a leaderboard seeded from only the top rows. Standings below them
+     * may be missing accounts that are not in memory.
+     *
+     * @param count The number of complete standings, or {@link Integer#MAX_VALUE} if all are.
+     */
+    public synchronized void setComplete(final int count) {
+        this.complete = count;
+    }
+
+    /**
+     * Gets the number of top standings known to match the database.
+     *
+     * @return The number of complete standings, at most {@link #size()}.
+     */
+    public synchronized int completeSize() {
+        this.flush();
+        return Math.min(this.complete, size(this.root));
+    }
+
+    /**
+     * Gets a counter that changes whenever a standing moves within the
+     * ranks read so far, for invalidating anything rendered from them.
+     * Changes to {@link #completeSize()} do not move it.
+     *
+     * @return The version.
+     */
+    public synchronized long getVersion() {
+        this.flush();
+        return this.version;
+    }
+
+    /**
+     * Gets the number of accounts on the leaderboard.
+     *
+     * @return The size.
+     */
+    public synchronized int size() {
+        this.flush();
+        return size(this.root);
+    }
+
+    /**
+     * Gets the standings at the top of the leaderboard.
+     *
+     * @param count The maximum number of standings.
+     * @return The top standings, highest first.
+     */
+    public List<Standing> top(final int count) {
+        return this.range(1, count);
+    }
+
+    /**
+     * Gets a run of standings starting at a rank.
+     *
+     * @param rank  The 1-based rank of the first standing.
+     * @param count The maximum number of standings.
+     * @return The standings, highest first.
+     */
+    public synchronized List<Standing> range(final int rank, final int count) {
+        this.flush();
+        this.watched = (int) Math.max(this.watched, Math.min(Integer.MAX_VALUE, (long) rank + count - 1));
+
+        final List<Standing> result = new ArrayList<>(Math.max(0, Math.min(count, size(this.root))));
+        if (rank >= 1 && count > 0) collect(this.root, rank - 1, count, result);
+
+        return result;
+    }
+
+    /**
+     * Gets the standings around a rank.
+     *
+     * @param rank   The 1-based rank in the middle.
+     * @param radius The number of standings to include on either side.
+     * @return The standings, highest first.
+     */
+    public List<Standing> around(final int rank, final int radius) {
+        final int from = Math.max(1, rank - radius);
+        return this.range(from, rank + radius - from + 1);
+    }
+
+    /**
+     * Gets the rank of an account.
+     *
+     * @param id The UUID of the account.
+     * @return The 1-based rank, or empty if the account is not on the leaderboard.
+     */
+    public synchronized OptionalInt rank(final UUID id) {
+        this.flush();
+
+        final Standing standing = this.standings.get(id);
+        if (standing == null) return OptionalInt.empty();
+
+        final int rank = position(this.root, standing);
+        return rank > 0 ? OptionalInt.of(rank) : OptionalInt.empty();
+    }
+
+    // Replaces an account's standing, or takes it off if null, moving the version if a read rank moved
+    private void place(final UUID id, final Standing standing) {
+        final Standing previous = standing == null ? this.standings.remove(id) : this.standings.put(id, standing);
+        if (Objects.equals(standing, previous)) return;
+
+        // Every rank from the higher of the old and new positions down shifts
+        int moved = Integer.MAX_VALUE;
+        if (previous != null) {
+            moved = position(this.root, previous);
+            this.root = delete(this.root, previous);
+        }
+        if (standing != null) {
+            this.root = insert(this.root, new Node(standing));
+            moved = Math.min(moved, position(this.root, standing));
+        }
+
+        if (moved <= this.watched) this.version++;
+    }
+
+    // Gets the 1-based position of a standing, or 0 if it is not in the subtree
+    private static int position(final Node root, final Standing standing) {
+        int before = 0;
+        Node node = root;
+
+        while (node != null) {
+            final int cmp = ORDER.compare(standing, node.standing);
+            if (cmp == 0) return before + size(node.left) + 1;
+
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                before += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+
+        return 0;
+    }
+
+    // Appends up to count standings in order, skipping the first skip
+    private static void collect(final Node node, final int skip, final int count, final List<Standing> result) {
+        if (node == null || result.size() >= count) return;
+
+        final int leftSize = size(node.left);
+        if (skip < leftSize) collect(node.left, skip, count, result);
+        if (result.size() >= count) return;
+
+        if (skip <= leftSize) result.add(node.standing);
+        collect(node.right, Math.max(0, skip - leftSize - 1), count, result);
+    }
+
+    // Inserts a node at the depth its priority calls for, splitting the subtree it displaces
+    private static Node insert(final Node node, final Node inserted) {
+        if (node == null) return inserted;
+
+        if (inserted.priority > node.priority) {
+            final Node[] halves = split(node, inserted.standing);
+            inserted.left = halves[0];
+            inserted.right = halves[1];
+            return inserted.update();
+        }
+
+        if (ORDER.compare(inserted.standing, node.standing) < 0) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        return node.update();
+    }
+
+    // Deletes the node holding a standing
+    private static Node delete(final Node node, final Standing standing) {
+        if (node == null) return null;
+
+        final int cmp = ORDER.compare(standing, node.standing);
+        if (cmp == 0) return merge(node.left, node.right);
+
+        if (cmp < 0) {
+            node.left = delete(node.left, standing);
+        } else {
+            node.right = delete(node.right, standing);
+        }
+        return node.update();
+    }
+
+    // Splits a subtree into the standings before a key and the rest
+    private static Node[] split(final Node node, final Standing key) {
+        if (node == null) return new Node[]{null, null};
+
+        if (ORDER.compare(node.standing, key) < 0) {
+            final Node[] halves = split(node.right, key);
+            node.right = halves[0];
+            return new Node[]{node.update(), halves[1]};
+        }
+
+        final Node[] halves = split(node.left, key);
+        node.left = halves[1];
+        return new Node[]{halves[0], node.update()};
+    }
+
+    // Merges two subtrees where every standing in the first comes before the second
+    private static Node merge(final Node left, final Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    // Gets the size of a subtree
+    private static int size(final Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * An immutable record of an account's place on the leaderboard.
+     */
+    public record Standing(UUID id, String name, String displayName, long balance) {
+
+        // Creates a standing from the current state of an account
+        public static Standing of(final Account account) {
+            return new Standing(account.getId(), account.getName(), account.getDisplayName(), account.getBalance());
+        }
+
+    }
+
+    // A treap node
+    private static final class Node {
+
+        private final Standing standing;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(final Standing standing) {
+            this.standing = standing;
+        }
+
+        // Recomputes the subtree size
+        private Node update() {
+            this.size = 1 + Leaderboard.size(this.left) + Leaderboard.size(this.right);
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.spektrsoyuz.economy.model.account;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.OptionalLong;
+
+/**
+ * Fixed-point arithmetic for amounts held as a {@code long} count of minor
+ * units, e.g. hundredths of a crown at a scale of 2. Amounts are only turned
+ * into {@link BigDecimal}s at the Vault API and database boundaries.
+ *
+ * @since 1.1.0
+ */
+public final class Money {
+
+    // The balance column holds two decimal places
+    public static final int MAX_SCALE = 2;
+
+    // The balance column holds ten digits
+    private static final long MAX_WHOLE = 100_000_000L;
+
+    // Binary rounding error, in minor units, still accepted as an exact double amount
+    private static final double EXACT_TOLERANCE = 1e-6;
+
+    private static volatile int scale = MAX_SCALE;
+    private static volatile long unit = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Sets the number of decimal places amounts are held at. Must be called
+     * before any account is loaded, as existing amounts are not rescaled.
+     *
+     * @param scale The number of decimal places.
+     * @throws IllegalArgumentException If the scale is not between 0 and {@link #MAX_SCALE}.
+     */
+    public static void configure(final int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale must be between 0 and " + MAX_SCALE + ", got " + scale);
+        }
+
+        Money.unit = pow10(scale);
+        Money.scale = scale;
+    }
+
+    /**
+     * Gets the number of decimal places amounts are held at.
+     *
+     * @return The scale.
+     */
+    public static int getScale() {
+        return scale;
+    }
+
+    /**
+     * Gets the largest balance the balance column can hold.
+     *
+     * @return The maximum balance, in minor units.
+     */
+    public static long maxBalance() {
+        return MAX_WHOLE * unit - 1;
+    }
+
+    /**
+     * Converts a whole amount into minor units.
+     *
+     * @param amount The whole amount.
+     * @return The amount in minor units.
+     * @throws ArithmeticException If the amount overflows.
+     */
+    public static long ofWhole(final long amount) {
+        return Math.multiplyExact(amount, unit);
+    }
+
+    /**
+     * Converts an amount into minor units, rounding half toward positive infinity.
+     *
+     * @param amount The amount.
+     * @return The amount in minor units.
+     * @throws ArithmeticException If the amount is not finite or does not fit in a {@code long}.
+     */
+    public static long of(final double amount) {
+        final double units = amount * unit;
+        if (!Double.isFinite(units) || Math.abs(units) >= 0x1p63) {
+            throw new ArithmeticException("Amount out of range: " + amount);
+        }
+
+        return Math.round(units);
+    }
+
+    /**
+     * Converts an amount into minor units if it is held exactly at the
+     * current scale, up to binary rounding noise, and within the balance limit.
+     *
+     * @param amount The amount.
+     * @return The amount in minor units, or empty if it is not finite, has
+     * more decimal places than the scale or exceeds {@link #maxBalance()}.
+     */
+    public static OptionalLong ofExact(final double amount) {
+        final double units = amount * unit;
+        if (!Double.isFinite(units) || Math.abs(units) > maxBalance()) return OptionalLong.empty();
+
+        final long rounded = Math.round(units);
+        return Math.abs(units - rounded) <= EXACT_TOLERANCE ? OptionalLong.of(rounded) : OptionalLong.empty();
+    }
+
+    /**
+     * Converts an amount into minor units if it is held exactly at the
+     * current scale and within the balance limit.
+     *
+     * @param amount The amount.
+     * @return The amount in minor units, or empty if it has more decimal
+     * places than the scale or exceeds {@link #maxBalance()}.
+     */
+    public static OptionalLong ofExact(final BigDecimal amount) {
+        // Anything with more whole digits than a long is out of range, however it is scaled
+        if (amount.precision() - amount.scale() > 19) return OptionalLong.empty();
+
+        try {
+            final long units = amount.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+            return Math.abs(units) <= maxBalance() ? OptionalLong.of(units) : OptionalLong.empty();
+        } catch (final ArithmeticException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * Converts an amount into minor units, rounding half to even.
+     *
+     * @param amount The amount.
+     * @return The amount in minor units.
+     * @throws ArithmeticException If the amount does not fit in a {@code long}.
+     */
+    public static long of(final BigDecimal amount) {
+        return amount.setScale(scale, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Parses a plain decimal string into minor units.
+     *
+     * @param amount The decimal string.
+     * @return The amount in minor units.
+     * @throws NumberFormatException If the string is not a decimal number.
+     */
+    public static long parse(final String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    /**
+     * Converts minor units into a decimal amount.
+     *
+     * @param units The amount in minor units.
+     * @return The decimal amount.
+     */
+    public static BigDecimal toDecimal(final long units) {
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    /**
+     * Converts minor units into a {@code double} amount.
+     *
+     * @param units The amount in minor units.
+     * @return The amount.
+     */
+    public static double toDouble(final long units) {
+        return (double) units / unit;
+    }
+
+    /**
+     * Gets the whole part of an amount, truncating toward zero.
+     *
+     * @param units The amount in minor units.
+     * @return The whole amount.
+     */
+    public static long toWhole(final long units) {
+        return units / unit;
+    }
+
+    /**
+     * Formats minor units as a plain decimal string.
+     *
+     * @param units The amount in minor units.
+     * @return The decimal string.
+     */
+    public static String toPlainString(final long units) {
+        return toDecimal(units).toPlainString();
+    }
+
+    /**
+     * Converts an amount held at another scale into minor units at the current scale.
+     *
+     * @param units     The amount in minor units of the other scale.
+     * @param fromScale The other scale.
+     * @return The amount in minor units.
+     */
+    public static long rescale(final long units, final int fromScale) {
+        if (fromScale == scale) return units;
+
+        return of(BigDecimal.valueOf(units, fromScale));
+    }
+
+    // Gets 10 raised to a small power
+    private static long pow10(final int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.spektrsoyuz.economy.model.account;
 
-import java.math.BigDecimal;
+import com.spektrsoyuz.economy.model.data.MinorUnits;
+
 import java.util.UUID;
 
 /**
@@ -8,15 +9,22 @@ import java.util.UUID;
  *
  * @param accountId   The UUID of the account affected.
  * @param accountName The name of the account at the time of the transaction.
- * @param amount      The amount changed (positive for deposits, negative for withdrawals).
+ * @param amount      The amount changed in minor units (positive for deposits, negative for withdrawals).
  * @param transactor  The entity or actor that initiated the transaction.
+ * @param transferId  The transfer this transaction is a leg of, or {@code null} if none.
  * @since 1.0.0
  */
 public record Transaction(
         UUID accountId,
         String accountName,
-        BigDecimal amount,
-        Transactor transactor
+        @MinorUnits long amount,
+        Transactor transactor,
+        UUID transferId
 ) {
 
+    // Creates a transaction that is not part of a transfer
+    public Transaction(final UUID accountId, final String accountName, final long amount, final Transactor transactor) {
+        this(accountId, accountName, amount, transactor, null);
+    }
+
 }
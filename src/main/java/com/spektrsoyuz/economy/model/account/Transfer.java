@@ -0,0 +1,34 @@
+package com.spektrsoyuz.economy.model.account;
+
+import java.util.UUID;
+
+/**
+ * Model record for a transfer between two accounts, journaled and
+ * persisted as two transaction legs linked by the transfer ID.
+ *
+ * @param id         The unique identifier shared by both legs.
+ * @param from       The account debited.
+ * @param to         The account credited.
+ * @param amount     The amount moved, in minor units.
+ * @param transactor The entity or actor that initiated the transfer.
+ * @since 1.1.0
+ */
+public record Transfer(
+        UUID id,
+        Account from,
+        Account to,
+        long amount,
+        Transactor transactor
+) {
+
+    // Creates the transaction leg debiting the sending account
+    public Transaction debit() {
+        return new Transaction(this.from.getId(), this.from.getName(), -this.amount, this.transactor, this.id);
+    }
+
+    // Creates the transaction leg crediting the receiving account
+    public Transaction credit() {
+        return new Transaction(this.to.getId(), this.to.getName(), this.amount, this.transactor, this.id);
+    }
+
+}
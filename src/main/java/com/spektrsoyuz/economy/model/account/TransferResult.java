@@ -0,0 +1,16 @@
+package com.spektrsoyuz.economy.model.account;
+
+/**
+ * Model enum for the outcome of a transfer between two accounts.
+ *
+ * @since 1.1.0
+ */
+public enum TransferResult {
+    SUCCESS,
+    INVALID_AMOUNT,
+    SAME_ACCOUNT,
+    ACCOUNT_NOT_FOUND,
+    FROZEN,
+    INSUFFICIENT_BALANCE,
+    BALANCE_LIMIT
+}
@@ -0,0 +1,19 @@
+package com.spektrsoyuz.economy.model.config;
+
+/**
+ * Model record for an immutable, fully deserialized view of the primary configuration.
+ * A new snapshot is built on every load and published as a whole, so
+ * readers never see settings from two different loads.
+ *
+ * @param currency The currency settings.
+ * @param options  The general plugin options.
+ * @param storage  The database storage settings.
+ * @since 1.1.0
+ */
+public record ConfigSnapshot(
+        CurrencyConfig currency,
+        OptionsConfig options,
+        StorageConfig storage
+) {
+
+}
@@ -1,11 +1,14 @@
 package com.spektrsoyuz.economy.model.config;
 
 import com.spektrsoyuz.economy.model.CurrencyType;
+import com.spektrsoyuz.economy.model.account.Money;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.bukkit.Material;
 import org.spongepowered.configurate.objectmapping.ConfigSerializable;
+import org.spongepowered.configurate.objectmapping.meta.PostProcess;
+import org.spongepowered.configurate.serialize.SerializationException;
 
-import java.math.BigDecimal;
 import java.util.Map;
 
 /**
@@ -21,21 +24,48 @@ public final class CurrencyConfig {
     private final String namePlural;
     private final String nameSingular;
     private final double startingBalance;
+    private final int scale;
     private final String symbol;
     private final String type;
     private final Map<String, Integer> items;
     private final ExpConfig exp;
 
+    // Resolved once after loading
+    @Getter(AccessLevel.NONE)
+    private transient CurrencyType currencyType;
+    private transient CurrencyFormatter formatter;
+    private transient ItemValueTable itemValues;
+    private transient DenominationEngine denominationEngine;
+
     // Constructor
     public CurrencyConfig() {
         this.name = "crowns";
         this.namePlural = "crowns";
         this.nameSingular = "crown";
         this.startingBalance = 0.0;
+        this.scale = Money.MAX_SCALE;
         this.symbol = "";
         this.type = "default";
         this.items = Map.of("gold_ingot", 1, "gold_block", 9);
         this.exp = new ExpConfig();
+        this.currencyType = CurrencyType.DEFAULT;
+        this.formatter = new CurrencyFormatter(this.symbol, this.nameSingular, this.namePlural);
+        this.itemValues = new ItemValueTable(this.items);
+        this.denominationEngine = new DenominationEngine(this.itemValues);
+    }
+
+    // Resolves derived settings once the fields are loaded
+    @PostProcess
+    private void resolve() throws SerializationException {
+        try {
+            this.currencyType = CurrencyType.valueOf(this.type.toUpperCase());
+        } catch (final IllegalArgumentException e) {
+            throw new SerializationException("Unknown currency type '" + this.type + "'");
+        }
+
+        this.formatter = new CurrencyFormatter(this.symbol, this.nameSingular, this.namePlural);
+        this.itemValues = new ItemValueTable(this.items == null ? Map.of() : this.items);
+        this.denominationEngine = new DenominationEngine(this.itemValues);
     }
 
     @Getter
@@ -51,14 +81,14 @@ public final class CurrencyConfig {
         }
     }
 
-    // Gets the starting balance for new accounts
-    public BigDecimal getStartingBalance() {
-        return BigDecimal.valueOf(this.startingBalance);
+    // Gets the starting balance for new accounts, in minor units
+    public long getStartingBalance() {
+        return Money.of(this.startingBalance);
     }
 
     // Gets the currency type
     public CurrencyType getType() {
-        return CurrencyType.valueOf(this.type.toUpperCase());
+        return this.currencyType;
     }
 
     /**
@@ -67,10 +97,7 @@ public final class CurrencyConfig {
      * @return the value, or 0 if not a valid item
      */
     public int getItemValue(final Material material) {
-        if (material == null) return 0;
-
-        final String key = material.getKey().getKey().toLowerCase();
-        return items.getOrDefault(key, 0);
+        return this.itemValues.getValue(material);
     }
 
 }
@@ -0,0 +1,126 @@
+package com.spektrsoyuz.economy.model.config;
+
+import com.spektrsoyuz.economy.model.account.Money;
+
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Model class for formatting amounts held in minor units as currency
+ * strings, e.g. {@code $1,234.5 crowns}. Digits are written straight from
+ * the {@code long}, grouped in thousands with trailing fraction zeros
+ * dropped, so no decimal or format object is created per call.
+ * <p>
+ * Recently formatted amounts are kept in a small direct-mapped cache: each
+ * slot holds the last amount formatted into it, so repeated amounts such as
+ * shop prices are served without formatting again. Instances are immutable
+ * apart from the cache and safe to share between threads.
+ *
+ * @since 1.1.0
+ */
+public final class CurrencyFormatter {
+
+    // Number of cache slots, a power of two
+    private static final int CACHE_SIZE = 1024;
+
+    private final String symbol;
+    private final String nameSingular;
+    private final String namePlural;
+    private final char groupingSeparator;
+    private final char decimalSeparator;
+    private final char minusSign;
+
+    // Entries are immutable, so a racing read sees either a whole entry or none
+    private final Entry[] cache = new Entry[CACHE_SIZE];
+
+    /**
+     * Creates a formatter with the separators of the default locale.
+     *
+     * @param symbol       The currency symbol written before the amount.
+     * @param nameSingular The currency name written after an amount of exactly one.
+     * @param namePlural   The currency name written after any other amount.
+     */
+    public CurrencyFormatter(final String symbol, final String nameSingular, final String namePlural) {
+        final DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance();
+
+        this.symbol = symbol == null ? "" : symbol;
+        this.nameSingular = nameSingular;
+        this.namePlural = namePlural;
+        this.groupingSeparator = symbols.getGroupingSeparator();
+        this.decimalSeparator = symbols.getDecimalSeparator();
+        this.minusSign = symbols.getMinusSign();
+    }
+
+    /**
+     * Formats an amount with the currency symbol and name.
+     *
+     * @param amount The amount in minor units.
+     * @return The formatted currency string.
+     */
+    public String format(final long amount) {
+        final int scale = Money.getScale();
+        final int slot = slot(amount);
+
+        final Entry entry = this.cache[slot];
+        if (entry != null && entry.amount() == amount && entry.scale() == scale) {
+            return entry.text();
+        }
+
+        final String text = this.render(amount, scale);
+        this.cache[slot] = new Entry(amount, scale, text);
+        return text;
+    }
+
+    // Writes the symbol, grouped digits and currency name for an amount
+    private String render(final long amount, final int scale) {
+        final String label = amount == Money.ofWhole(1) ? this.nameSingular : this.namePlural;
+
+        // Long.toString copes with Long.MIN_VALUE, unlike negating first
+        final String raw = Long.toString(amount);
+        final boolean negative = amount < 0;
+        final String digits = negative ? raw.substring(1) : raw;
+
+        // Pad so there is at least one whole digit in front of the fraction
+        final int padding = Math.max(0, scale + 1 - digits.length());
+        final int length = digits.length() + padding;
+        final int wholeLength = length - scale;
+
+        int fractionEnd = length;
+        while (fractionEnd > wholeLength && digitAt(digits, padding, fractionEnd - 1) == '0') {
+            fractionEnd--;
+        }
+
+        final StringBuilder builder = new StringBuilder(this.symbol.length() + length + length / 3 + label.length() + 3);
+        builder.append(this.symbol);
+        if (negative) builder.append(this.minusSign);
+
+        for (int i = 0; i < wholeLength; i++) {
+            if (i > 0 && (wholeLength - i) % 3 == 0) builder.append(this.groupingSeparator);
+            builder.append(digitAt(digits, padding, i));
+        }
+
+        if (fractionEnd > wholeLength) {
+            builder.append(this.decimalSeparator);
+            for (int i = wholeLength; i < fractionEnd; i++) {
+                builder.append(digitAt(digits, padding, i));
+            }
+        }
+
+        return builder.append(' ').append(label).toString();
+    }
+
+    // Gets a digit of the left-padded digit string
+    private static char digitAt(final String digits, final int padding, final int index) {
+        return index < padding ? '0' : digits.charAt(index - padding);
+    }
+
+    // Gets the cache slot for an amount
+    private static int slot(final long amount) {
+        final long hash = amount * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 54) & (CACHE_SIZE - 1);
+    }
+
+    // A formatted amount and the scale it was formatted at
+    private record Entry(long amount, int scale, String text) {
+    }
+
+}
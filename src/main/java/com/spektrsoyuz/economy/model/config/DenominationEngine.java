@@ -0,0 +1,553 @@
+package com.spektrsoyuz.economy.model.config;
+
+import com.spektrsoyuz.economy.model.InventoryCapacity;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Model class for making amounts out of currency items, built once per
+ * config load.
+ * <p>
+ * Without an inventory to fit, combinations are ranked by the room they
+ * take, each item weighing the fraction of a slot it fills. Let the anchor
+ * be the denomination with the most value per slot. Any {@code anchor.value}
+ * other items contain a subset whose value is a multiple of the anchor's,
+ * and swapping that subset for anchor items never takes more room. So some
+ * cheapest combination holds fewer than {@code anchor.value} other items,
+ * worth less than {@code anchor.value * highest value}. A table of the
+ * cheapest way to make every amount up to that bound is filled in once. Any
+ * larger amount is then one of the residues below the bound that share its
+ * remainder, with anchor items making up the rest.
+ * <p>
+ * Against an {@link InventoryCapacity}, combinations are ranked by the
+ * number of empty slots they take, after topping up partial stacks. That
+ * cost depends on each denomination's count on its own: items up to the
+ * headroom are free and every empty slot holds up to a stack more. So the
+ * fewest slots making every amount the lowest denominations can hold are
+ * worked out per call, one denomination at a time, with a sliding minimum
+ * over the amounts a count of it leaves. The remaining higher denominations
+ * are searched count by count, only over counts that leave an amount the
+ * lower ones can still make in the slots left.
+ *
+ * @since 1.1.0
+ */
+public final class DenominationEngine {
+
+    // Largest number of amounts the table covers; beyond it results stay exact but may not be cheapest
+    private static final int MAX_TABLE = 1 << 18;
+
+    // Number of amounts the per-call slot table aims to stay within
+    private static final int MAX_PACKING = 1 << 16;
+
+    private static final int NO_FIT = Integer.MAX_VALUE;
+
+    // Largest slot weight, bounding the cost of one item
+    private static final long MAX_WEIGHT = 1 << 16;
+
+    private static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private final List<ItemValueTable.Denomination> denominations;
+    private final long[] weights;
+    private final int anchor;
+    private final long[] costs;
+    private final byte[] last;
+
+    /**
+     * Builds the engine for a set of denominations.
+     *
+     * @param table The resolved currency items.
+     */
+    public DenominationEngine(final ItemValueTable table) {
+        this(table.getByDensity());
+    }
+
+    /**
+     * Builds the engine for a list of denominations.
+     *
+     * @param denominations The currency items, ordered by the value of a full stack, highest first.
+     */
+    public DenominationEngine(final List<ItemValueTable.Denomination> denominations) {
+        this.denominations = List.copyOf(denominations);
+        this.weights = weights(this.denominations);
+        this.anchor = 0;
+
+        if (this.denominations.isEmpty()) {
+            this.costs = new long[]{0};
+            this.last = new byte[]{-1};
+            return;
+        }
+
+        int highest = 0;
+        for (final ItemValueTable.Denomination denomination : this.denominations) {
+            highest = Math.max(highest, denomination.value());
+        }
+
+        final long bound = Math.min(MAX_TABLE, (long) this.denominations.getFirst().value() * highest);
+        this.costs = new long[(int) bound + 1];
+        this.last = new byte[(int) bound + 1];
+
+        Arrays.fill(this.costs, UNREACHABLE);
+        Arrays.fill(this.last, (byte) -1);
+        this.costs[0] = 0;
+
+        for (int amount = 1; amount <= bound; amount++) {
+            for (int i = 0; i < this.denominations.size() && i < Byte.MAX_VALUE; i++) {
+                final int value = this.denominations.get(i).value();
+                if (value > amount || this.costs[amount - value] == UNREACHABLE) continue;
+
+                final long cost = this.costs[amount - value] + this.weights[i];
+                if (cost < this.costs[amount]) {
+                    this.costs[amount] = cost;
+                    this.last[amount] = (byte) i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the combination making an amount exactly that takes the least
+     * inventory room.
+     *
+     * @param amount The amount to make.
+     * @return The combination, or {@code null} if the amount cannot be made exactly.
+     */
+    public Combination change(final int amount) {
+        return this.fit(amount, null);
+    }
+
+    /**
+     * Finds the combination making an amount exactly that takes the fewest
+     * empty slots and fits in the given capacity.
+     *
+     * @param amount   The amount to make.
+     * @param capacity The room available, or {@code null} for no limit.
+     * @return The combination, or {@code null} if no exact combination fits.
+     */
+    public Combination fit(final int amount, final InventoryCapacity capacity) {
+        if (amount < 0 || this.denominations.isEmpty()) return null;
+        if (amount == 0) return this.empty();
+        if (capacity == null) return this.cheapest(amount);
+
+        return new Packing(capacity, amount).exact(amount);
+    }
+
+    /**
+     * Makes as much of an amount as fits in the given capacity, in the
+     * fewest empty slots that make that much.
+     *
+     * @param maxAmount The most to make.
+     * @param capacity  The room available, or {@code null} for no limit.
+     * @return The combination, making 0 if nothing fits.
+     */
+    public Combination fill(final int maxAmount, final InventoryCapacity capacity) {
+        if (maxAmount <= 0 || this.denominations.isEmpty()) return this.empty();
+        if (capacity != null) return new Packing(capacity, maxAmount).largest(maxAmount);
+
+        // Without a limit, take items in order of value per slot, then remake that amount in the least room
+        final int[] counts = new int[this.denominations.size()];
+        int remaining = maxAmount;
+
+        for (int i = 0; i < counts.length && remaining > 0; i++) {
+            counts[i] = remaining / this.denominations.get(i).value();
+            remaining -= counts[i] * this.denominations.get(i).value();
+        }
+
+        final int filled = maxAmount - remaining;
+        final Combination cheaper = this.cheapest(filled);
+
+        return cheaper != null ? cheaper : new Combination(filled, this.denominations, counts);
+    }
+
+    // Finds the combination making an amount exactly in the least room, with no inventory to fit
+    private Combination cheapest(final int amount) {
+        if (amount == 0) return this.empty();
+
+        final int anchorValue = this.denominations.get(this.anchor).value();
+        final int bound = Math.min(amount, this.costs.length - 1);
+
+        int bestResidue = -1;
+        long bestCost = UNREACHABLE;
+
+        // Every residue sharing the amount's remainder, with anchor items making up the rest
+        for (int residue = amount % anchorValue; residue <= bound; residue += anchorValue) {
+            if (this.costs[residue] == UNREACHABLE) continue;
+
+            final long cost = this.costs[residue] + (long) ((amount - residue) / anchorValue) * this.weights[this.anchor];
+            if (cost < bestCost) {
+                bestResidue = residue;
+                bestCost = cost;
+            }
+        }
+
+        return bestResidue < 0 ? null : this.build(amount, bestResidue);
+    }
+
+    // Reads a residue's items back from the table and adds the anchor items
+    private Combination build(final int amount, final int residue) {
+        final int[] counts = new int[this.denominations.size()];
+
+        for (int left = residue; left > 0; left -= this.denominations.get(this.last[left]).value()) {
+            counts[this.last[left]]++;
+        }
+
+        counts[this.anchor] += (amount - residue) / this.denominations.get(this.anchor).value();
+        return new Combination(amount, this.denominations, counts);
+    }
+
+    /**
+     * The cheapest ways to make amounts within one inventory's capacity.
+     * The lowest denominations are tabled by amount, the rest are searched.
+     */
+    private final class Packing {
+
+        private final int emptySlots;
+        private final int[] headroom;
+        private final int[] limits;
+
+        // Tabled denominations, lowest value first, and the searched ones, highest value first
+        private final int[] tabled;
+        private final int[] searched;
+
+        // Largest amount tabled, and the value each search level and those below it can hold
+        private final int bound;
+        private final long[] below;
+
+        // Value those denominations hold in partial stacks, and the most a full stack of one is worth
+        private final long[] topUp;
+        private final long[] fullStack;
+
+        // Fewest empty slots making each amount from the tabled denominations, and the count of each
+        private int[] slots;
+        private final int[][] chosen;
+
+        // Best combination found by the search
+        private final int[] counts;
+        private final int[] bestCounts;
+        private int bestRest = -1;
+        private long bestScore;
+
+        // Constructor
+        private Packing(final InventoryCapacity capacity, final int limit) {
+            final int size = DenominationEngine.this.denominations.size();
+            this.emptySlots = capacity.getEmptySlots();
+            this.headroom = new int[size];
+            this.limits = new int[size];
+            this.counts = new int[size];
+            this.bestCounts = new int[size];
+
+            for (int i = 0; i < size; i++) {
+                final ItemValueTable.Denomination denomination = DenominationEngine.this.denominations.get(i);
+                this.headroom[i] = capacity.getHeadroom(denomination.material());
+
+                // Never more than the limit needs, nor more than the room allows
+                final long room = this.headroom[i] + (long) this.emptySlots * Math.max(1, denomination.maxStackSize());
+                this.limits[i] = (int) Math.min(room, limit / denomination.value());
+            }
+
+            final Integer[] byValue = new Integer[size];
+            for (int i = 0; i < size; i++) byValue[i] = i;
+            Arrays.sort(byValue, (a, b) -> Integer.compare(this.value(a), this.value(b)));
+
+            // Table the lowest denominations while the amounts they can make stay small
+            int tabledCount = 0;
+            long held = 0;
+            while (tabledCount < size) {
+                final long next = held + (long) this.limits[byValue[tabledCount]] * this.value(byValue[tabledCount]);
+                if (tabledCount > 0 && Math.min(next, limit) > MAX_PACKING) break;
+
+                held = next;
+                tabledCount++;
+            }
+
+            this.tabled = new int[tabledCount];
+            for (int j = 0; j < tabledCount; j++) this.tabled[j] = byValue[j];
+
+            this.searched = new int[size - tabledCount];
+            for (int j = 0; j < this.searched.length; j++) this.searched[j] = byValue[size - 1 - j];
+
+            this.below = new long[this.searched.length + 1];
+            this.topUp = new long[this.searched.length + 1];
+            this.fullStack = new long[this.searched.length + 1];
+
+            this.below[this.searched.length] = held;
+            for (final int index : this.tabled) {
+                this.topUp[this.searched.length] += (long) this.headroom[index] * this.value(index);
+                this.fullStack[this.searched.length] = Math.max(this.fullStack[this.searched.length], this.stackValue(index));
+            }
+
+            for (int level = this.searched.length - 1; level >= 0; level--) {
+                final int index = this.searched[level];
+                this.below[level] = this.below[level + 1] + (long) this.limits[index] * this.value(index);
+                this.topUp[level] = this.topUp[level + 1] + (long) this.headroom[index] * this.value(index);
+                this.fullStack[level] = Math.max(this.fullStack[level + 1], this.stackValue(index));
+            }
+
+            this.bound = (int) Math.min(limit, this.reach(this.searched.length, this.emptySlots));
+            this.chosen = new int[tabledCount][];
+        }
+
+        // Finds the combination making an amount exactly in the fewest empty slots, or null if none fits
+        private Combination exact(final int amount) {
+            if (amount > this.reach(0, this.emptySlots)) return null;
+
+            this.table();
+            this.bestScore = NO_FIT;
+            this.searchExact(0, amount, 0);
+
+            return this.bestRest < 0 ? null : this.combination(this.bestRest);
+        }
+
+        // Finds the combination making the most of an amount that fits, in the fewest empty slots
+        private Combination largest(final int maxAmount) {
+            this.table();
+            this.bestScore = -1;
+            this.searchLargest(0, 0, 0, maxAmount);
+
+            return this.bestRest < 0 ? DenominationEngine.this.empty() : this.combination(this.bestRest);
+        }
+
+        // Tries each count of a searched denomination that leaves an amount the lower ones can make
+        private void searchExact(final int level, final int remaining, final int used) {
+            if (level == this.searched.length) {
+                if (remaining > this.bound || this.slots[remaining] == NO_FIT) return;
+
+                final int total = used + this.slots[remaining];
+                if (total <= this.emptySlots && total < this.bestScore) this.record(remaining, total);
+                return;
+            }
+
+            final int index = this.searched[level];
+            final int value = this.value(index);
+            final long lowest = Math.max(0, Math.ceilDiv(remaining - this.below[level + 1], value));
+
+            for (long count = Math.min(this.limits[index], remaining / value); count >= lowest; count--) {
+                final int total = used + this.slotsFor(index, (int) count);
+                if (total > this.emptySlots || total >= this.bestScore) continue;
+                if (remaining - count * value > this.reach(level + 1, this.emptySlots - total)) continue;
+
+                this.counts[index] = (int) count;
+                this.searchExact(level + 1, (int) (remaining - count * value), total);
+            }
+            this.counts[index] = 0;
+        }
+
+        // Tries each count of a searched denomination, highest first, while it could still beat the best amount
+        private void searchLargest(final int level, final long made, final int used, final int maxAmount) {
+            if (level == this.searched.length) {
+                final int budget = this.emptySlots - used;
+                final long most = Math.min(maxAmount - made, this.reach(level, budget));
+
+                for (int rest = (int) Math.min(this.bound, most); rest >= 0; rest--) {
+                    if (this.slots[rest] > budget) continue;
+
+                    if (made + rest > this.bestScore) this.record(rest, made + rest);
+                    return;
+                }
+                return;
+            }
+
+            final int index = this.searched[level];
+            final int value = this.value(index);
+
+            for (long count = Math.min(this.limits[index], (maxAmount - made) / value); count >= 0; count--) {
+                final long base = made + count * value;
+                if (Math.min(base + this.below[level + 1], maxAmount) <= this.bestScore) break;
+
+                final int total = used + this.slotsFor(index, (int) count);
+                if (total > this.emptySlots) continue;
+                if (Math.min(base + this.reach(level + 1, this.emptySlots - total), maxAmount) <= this.bestScore) continue;
+
+                this.counts[index] = (int) count;
+                this.searchLargest(level + 1, base, total, maxAmount);
+                if (this.bestScore == maxAmount) break;
+            }
+            this.counts[index] = 0;
+        }
+
+        // Keeps the searched counts and the tabled amount of a new best combination
+        private void record(final int rest, final long score) {
+            System.arraycopy(this.counts, 0, this.bestCounts, 0, this.counts.length);
+            this.bestRest = rest;
+            this.bestScore = score;
+        }
+
+        // Reads the tabled counts for an amount back and adds the searched counts
+        private Combination combination(final int rest) {
+            final int[] result = this.bestCounts.clone();
+            long made = 0;
+
+            for (final int index : this.searched) {
+                made += (long) result[index] * this.value(index);
+            }
+
+            int left = rest;
+            for (int j = this.tabled.length - 1; j >= 0; j--) {
+                final int count = this.chosen[j][left];
+                result[this.tabled[j]] = count;
+                left -= count * this.value(this.tabled[j]);
+            }
+
+            return new Combination((int) (made + rest), DenominationEngine.this.denominations, result);
+        }
+
+        // Fills in the fewest empty slots making each amount from the tabled denominations
+        private void table() {
+            int[] best = new int[this.bound + 1];
+            Arrays.fill(best, NO_FIT);
+            best[0] = 0;
+
+            final int[] window = new int[this.bound + 1];
+
+            for (int j = 0; j < this.tabled.length; j++) {
+                final int index = this.tabled[j];
+                final int value = this.value(index);
+                final int stack = Math.max(1, DenominationEngine.this.denominations.get(index).maxStackSize());
+                final int free = this.headroom[index];
+
+                final int[] next = new int[this.bound + 1];
+                final int[] counts = new int[this.bound + 1];
+
+                for (int residue = 0; residue < value && residue <= this.bound; residue++) {
+                    final int length = (this.bound - residue) / value + 1;
+
+                    // Up to the headroom, items top up partial stacks at no cost
+                    int head = 0;
+                    int tail = 0;
+                    for (int t = 0; t < length; t++) {
+                        final int amount = residue + t * value;
+                        while (tail > head && best[residue + window[tail - 1] * value] >= best[amount]) tail--;
+                        window[tail++] = t;
+                        while (window[head] < t - free) head++;
+
+                        next[amount] = best[residue + window[head] * value];
+                        counts[amount] = t - window[head];
+                    }
+
+                    // Each empty slot then holds up to a stack more, so one more slot reaches a stack past any amount
+                    head = 0;
+                    tail = 0;
+                    for (int t = 0; t < length; t++) {
+                        final int amount = residue + t * value;
+                        while (tail > head && window[head] < t - stack) head++;
+
+                        if (tail > head) {
+                            final int from = residue + window[head] * value;
+                            if (next[from] < this.emptySlots && next[from] + 1 < next[amount]) {
+                                next[amount] = next[from] + 1;
+                                counts[amount] = counts[from] + t - window[head];
+                            }
+                        }
+
+                        while (tail > head && next[residue + window[tail - 1] * value] >= next[amount]) tail--;
+                        window[tail++] = t;
+                    }
+                }
+
+                best = next;
+                this.chosen[j] = counts;
+            }
+
+            this.slots = best;
+        }
+
+        // Gets the most the denominations below a search level can add in a number of empty slots
+        private long reach(final int level, final int budget) {
+            return Math.min(this.below[level], this.topUp[level] + budget * this.fullStack[level]);
+        }
+
+        // Gets the number of empty slots a count of a denomination takes after topping up partial stacks
+        private int slotsFor(final int index, final int count) {
+            final int overflow = count - this.headroom[index];
+            if (overflow <= 0) return 0;
+
+            final int stack = Math.max(1, DenominationEngine.this.denominations.get(index).maxStackSize());
+            return (overflow + stack - 1) / stack;
+        }
+
+        // Gets the value of a denomination by index
+        private int value(final int index) {
+            return DenominationEngine.this.denominations.get(index).value();
+        }
+
+        // Gets the value of a full stack of a denomination by index
+        private long stackValue(final int index) {
+            return (long) this.value(index) * Math.max(1, DenominationEngine.this.denominations.get(index).maxStackSize());
+        }
+
+    }
+
+    // Gets a combination making nothing
+    private Combination empty() {
+        return new Combination(0, this.denominations, new int[this.denominations.size()]);
+    }
+
+    // Gets each denomination's slot weight: the common stack size over its own
+    private static long[] weights(final List<ItemValueTable.Denomination> denominations) {
+        long common = 1;
+        for (final ItemValueTable.Denomination denomination : denominations) {
+            final long stack = Math.max(1, denomination.maxStackSize());
+            common = Math.min(MAX_WEIGHT, common / gcd(common, stack) * stack);
+        }
+
+        final long[] weights = new long[denominations.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = Math.max(1, common / Math.max(1, denominations.get(i).maxStackSize()));
+        }
+        return weights;
+    }
+
+    // Gets the greatest common divisor of two positive numbers
+    private static long gcd(final long a, final long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /**
+     * A number of items of each denomination making an amount.
+     *
+     * @param amount        The amount made.
+     * @param denominations The denominations, in engine order.
+     * @param counts        The number of items of each denomination.
+     */
+    public record Combination(int amount, List<ItemValueTable.Denomination> denominations, int[] counts) {
+
+        /**
+         * Checks whether the items fit in the given capacity, without
+         * consuming it.
+         *
+         * @param capacity The room available.
+         * @return {@code true} if every item fits.
+         */
+        public boolean fits(final InventoryCapacity capacity) {
+            final InventoryCapacity room = capacity.copy();
+
+            for (int i = 0; i < this.counts.length; i++) {
+                if (room.add(this.denominations.get(i).material(), this.counts[i]) < this.counts[i]) return false;
+            }
+
+            return true;
+        }
+
+        // Breaks the items into max-sized stacks
+        public List<ItemStack> toStacks() {
+            final List<ItemStack> stacks = new ArrayList<>();
+
+            for (int i = 0; i < this.counts.length; i++) {
+                final ItemValueTable.Denomination denomination = this.denominations.get(i);
+
+                int left = this.counts[i];
+                while (left > 0) {
+                    final int size = Math.min(left, denomination.maxStackSize());
+                    stacks.add(new ItemStack(denomination.material(), size));
+                    left -= size;
+                }
+            }
+
+            return stacks;
+        }
+
+    }
+
+}
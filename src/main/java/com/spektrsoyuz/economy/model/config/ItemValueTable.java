@@ -0,0 +1,87 @@
+package com.spektrsoyuz.economy.model.config;
+
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Model class for the configured currency items, resolved once per config
+ * load. Item values are held in an array indexed by {@link Material#ordinal()},
+ * and the denominations are kept pre-sorted by value per full stack, so
+ * item-currency hot paths neither parse material names nor sort.
+ *
+ * @since 1.1.0
+ */
+public final class ItemValueTable {
+
+    private static final Comparator<Denomination> BY_DENSITY = Comparator
+            .comparingLong(Denomination::stackValue).reversed();
+
+    private final int[] values;
+    private final List<Denomination> byDensity;
+
+    /**
+     * Resolves the configured items. Names that match no material and
+     * values below one are skipped.
+     *
+     * @param items The configured item names and their values.
+     */
+    public ItemValueTable(final Map<String, Integer> items) {
+        final Material[] materials = Material.values();
+        this.values = new int[materials.length];
+
+        final List<Denomination> denominations = new ArrayList<>(items.size());
+        for (final Map.Entry<String, Integer> entry : items.entrySet()) {
+            final Material material = Material.matchMaterial(entry.getKey());
+            final Integer value = entry.getValue();
+            if (material == null || value == null || value <= 0) continue;
+            if (this.values[material.ordinal()] > 0) continue;
+
+            this.values[material.ordinal()] = value;
+            denominations.add(new Denomination(material, value, material.getMaxStackSize()));
+        }
+
+        denominations.sort(BY_DENSITY);
+        this.byDensity = List.copyOf(denominations);
+    }
+
+    /**
+     * Gets the value of a material.
+     *
+     * @param material The material.
+     * @return The value, or 0 if the material is not a currency item.
+     */
+    public int getValue(final Material material) {
+        return material == null ? 0 : this.values[material.ordinal()];
+    }
+
+    /**
+     * Gets the currency items ordered by the value of a full stack, highest
+     * first, so the fewest slots are used when handing out an amount.
+     *
+     * @return The denominations.
+     */
+    public List<Denomination> getByDensity() {
+        return this.byDensity;
+    }
+
+    /**
+     * A currency item and its value.
+     *
+     * @param material     The item material.
+     * @param value        The value of one item.
+     * @param maxStackSize The maximum stack size of the material.
+     */
+    public record Denomination(Material material, int value, int maxStackSize) {
+
+        // Gets the value of a full stack
+        public long stackValue() {
+            return (long) this.value * this.maxStackSize;
+        }
+
+    }
+
+}
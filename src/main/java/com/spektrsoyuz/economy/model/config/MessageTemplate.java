@@ -0,0 +1,158 @@
+package com.spektrsoyuz.economy.model.config;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TranslatableComponent;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.kyori.adventure.text.minimessage.Context;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.Tag;
+import net.kyori.adventure.text.minimessage.tag.resolver.ArgumentQueue;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+
+import java.util.*;
+
+/**
+ * Model record for a message parsed once when the messages configuration is
+ * loaded. The source is parsed into a component tree in which every tag the
+ * MiniMessage instance does not know is left as a marker, so rendering a
+ * reply only parses the short {@code <name>} of each placeholder it uses and
+ * swaps those components into a copy of the tree.
+ * <p>
+ * The prefix is parsed on its own and inserted as a component, so an
+ * unclosed tag in it cannot restyle the message. Messages with
+ * placeholders inside event tags such as {@code <hover>} are parsed in full
+ * per call, as their markers would sit out of reach inside the event, and
+ * so are messages with placeholders that take arguments.
+ *
+ * @param source       The MiniMessage source of the message.
+ * @param miniMessage  The MiniMessage instance the tree was parsed with.
+ * @param prefix       Resolves {@code <prefix>} to the parsed prefix.
+ * @param tree         The parsed message with placeholder markers, or {@code null} to parse in full per call.
+ * @param placeholders The names of the placeholders in the tree.
+ * @since 1.1.0
+ */
+public record MessageTemplate(
+        String source,
+        MiniMessage miniMessage,
+        TagResolver prefix,
+        Component tree,
+        List<String> placeholders
+) {
+
+    private static final String PREFIX_TAG = "prefix";
+
+    // Translation key prefix marking where a placeholder goes in the tree
+    private static final String MARKER = "economy.placeholder.";
+
+    // Tags whose arguments are components of their own, out of reach of the tree walk
+    private static final List<String> EVENT_TAGS = List.of("<hover", "<click", "<insert");
+
+    /**
+     * Compiles a message, parsing it once with the prefix inserted.
+     *
+     * @param message     The MiniMessage source of the message.
+     * @param prefix      The MiniMessage source of the message prefix.
+     * @param miniMessage The MiniMessage instance to render with.
+     * @return The compiled template.
+     */
+    public static MessageTemplate compile(final String message, final String prefix, final MiniMessage miniMessage) {
+        final TagResolver prefixResolver = Placeholder.component(PREFIX_TAG, miniMessage.deserialize(prefix));
+
+        for (final String tag : EVENT_TAGS) {
+            if (message.contains(tag)) {
+                return new MessageTemplate(message, miniMessage, prefixResolver, null, List.of());
+            }
+        }
+
+        final Markers markers = new Markers(miniMessage.tags());
+        final Component tree = upright(miniMessage.deserialize(message, prefixResolver, markers));
+
+        // A placeholder with arguments cannot be parsed alone, so the message is parsed in full
+        if (markers.arguments) {
+            return new MessageTemplate(message, miniMessage, prefixResolver, null, List.of());
+        }
+
+        return new MessageTemplate(message, miniMessage, prefixResolver, tree, List.copyOf(markers.names));
+    }
+
+    /**
+     * Renders the message with the given placeholders. Without placeholders
+     * in the message the parsed tree is returned as is.
+     *
+     * @param miniMessage The MiniMessage instance to use for deserialization.
+     * @param resolvers   Tag resolvers for dynamic placeholders.
+     * @return The rendered message.
+     */
+    public Component render(final MiniMessage miniMessage, final TagResolver... resolvers) {
+        if (this.tree == null || miniMessage != this.miniMessage) {
+            return upright(miniMessage.deserialize(this.source, this.prefix, TagResolver.resolver(resolvers)));
+        }
+
+        if (this.placeholders.isEmpty()) return this.tree;
+
+        // Parse each placeholder alone, leaving unresolved ones as their literal tag like a full parse would
+        final Map<String, Component> values = new HashMap<>(this.placeholders.size() * 2);
+        for (final String name : this.placeholders) {
+            values.put(name, miniMessage.deserialize("<" + name + ">", resolvers));
+        }
+
+        return substitute(this.tree, values);
+    }
+
+    // Replaces the placeholder markers in a tree, copying only the branches that hold one
+    private static Component substitute(final Component component, final Map<String, Component> values) {
+        if (component instanceof TranslatableComponent marker && marker.key().startsWith(MARKER)) {
+            final Component value = values.get(marker.key().substring(MARKER.length()));
+            return value == null ? component : value.applyFallbackStyle(marker.style());
+        }
+
+        final List<Component> children = component.children();
+        List<Component> replaced = null;
+
+        for (int i = 0; i < children.size(); i++) {
+            final Component child = children.get(i);
+            final Component substituted = substitute(child, values);
+            if (substituted == child) continue;
+
+            if (replaced == null) replaced = new ArrayList<>(children);
+            replaced.set(i, substituted);
+        }
+
+        return replaced == null ? component : component.children(replaced);
+    }
+
+    // Keeps text upright unless the message says otherwise
+    private static Component upright(final Component component) {
+        return component.decorationIfAbsent(TextDecoration.ITALIC, TextDecoration.State.FALSE);
+    }
+
+    // Resolves every tag the MiniMessage instance does not know to a marker, recording its name
+    private static final class Markers implements TagResolver {
+
+        private final TagResolver known;
+        private final Set<String> names = new LinkedHashSet<>();
+        private boolean arguments;
+
+        // Constructor
+        private Markers(final TagResolver known) {
+            this.known = known;
+        }
+
+        @Override
+        public Tag resolve(final String name, final ArgumentQueue arguments, final Context ctx) {
+            if (!this.has(name)) return null;
+
+            this.names.add(name);
+            if (arguments.hasNext()) this.arguments = true;
+            return Tag.selfClosingInserting(Component.translatable(MARKER + name));
+        }
+
+        @Override
+        public boolean has(final String name) {
+            return !PREFIX_TAG.equals(name) && !this.known.has(name);
+        }
+
+    }
+
+}
@@ -1,10 +1,9 @@
 package com.spektrsoyuz.economy.model.config;
 
+import com.spektrsoyuz.economy.model.account.Money;
 import lombok.Getter;
 import org.spongepowered.configurate.objectmapping.ConfigSerializable;
 
-import java.math.BigDecimal;
-
 /**
  * Model class for the options config.
  *
@@ -21,6 +20,7 @@ public final class OptionsConfig {
     private final int transactionExpireDuration;
     private final boolean loseBalanceOnDeath;
     private final int loseBalanceOnDeathAmount;
+    private final int suggestionLimit;
 
     // Constructor
     public OptionsConfig() {
@@ -31,11 +31,12 @@ public final class OptionsConfig {
         this.transactionExpireDuration = 90;
         this.loseBalanceOnDeath = false;
         this.loseBalanceOnDeathAmount = 5;
+        this.suggestionLimit = 50;
     }
 
-    // Gets the amount lost on player death
-    public BigDecimal getLoseBalanceOnDeathAmount() {
-        return BigDecimal.valueOf(this.loseBalanceOnDeathAmount);
+    // Gets the amount lost on player death, in minor units
+    public long getLoseBalanceOnDeathAmount() {
+        return Money.ofWhole(this.loseBalanceOnDeathAmount);
     }
 
 }
@@ -1,5 +1,9 @@
 package com.spektrsoyuz.economy.model.config;
 
+import com.spektrsoyuz.economy.model.PersistenceMode;
+import com.spektrsoyuz.economy.model.ResidencyMode;
+import com.spektrsoyuz.economy.model.StorageType;
+import com.spektrsoyuz.economy.model.data.PersistenceExecutor;
 import lombok.Getter;
 import org.spongepowered.configurate.objectmapping.ConfigSerializable;
 
@@ -18,6 +22,14 @@ public final class StorageConfig {
     private final String database;
     private final String username;
     private final String password;
+    private final int batchSize;
+    private final int fetchSize;
+    private final int poolSize;
+    private final String persistenceMode;
+    private final ExecutorConfig executor;
+    private final JournalConfig journal;
+    private final ResidencyConfig residency;
+    private final SnapshotConfig snapshot;
 
     // Constructor
     public StorageConfig() {
@@ -27,6 +39,103 @@ public final class StorageConfig {
         this.database = "economy";
         this.username = "";
         this.password = "";
+        this.batchSize = 500;
+        this.fetchSize = 1000;
+        this.poolSize = 10;
+        this.persistenceMode = "delta";
+        this.executor = new ExecutorConfig();
+        this.journal = new JournalConfig();
+        this.residency = new ResidencyConfig();
+        this.snapshot = new SnapshotConfig();
+    }
+
+    // Gets the storage type
+    public StorageType getType() {
+        return StorageType.valueOf(this.type.toUpperCase());
+    }
+
+    // Checks whether any MySQL connection setting differs from its default
+    public boolean hasMySqlSettings() {
+        final StorageConfig defaults = new StorageConfig();
+
+        return !this.host.equals(defaults.host)
+                || this.port != defaults.port
+                || !this.username.isEmpty()
+                || !this.password.isEmpty();
+    }
+
+    // Gets the account persistence mode
+    public PersistenceMode getPersistenceMode() {
+        return PersistenceMode.valueOf(this.persistenceMode.toUpperCase());
+    }
+
+    @Getter
+    @ConfigSerializable
+    public static class ExecutorConfig {
+        private final String type;
+        private final int queueSize;
+        private final String rejectionPolicy;
+
+        // Constructor
+        public ExecutorConfig() {
+            this.type = "platform";
+            this.queueSize = 1000;
+            this.rejectionPolicy = "block";
+        }
+
+        // Gets the executor thread type
+        public PersistenceExecutor.Type getType() {
+            return PersistenceExecutor.Type.valueOf(this.type.toUpperCase());
+        }
+
+        // Gets the executor rejection policy
+        public PersistenceExecutor.RejectionPolicy getRejectionPolicy() {
+            return PersistenceExecutor.RejectionPolicy.valueOf(this.rejectionPolicy.toUpperCase().replace('-', '_'));
+        }
+    }
+
+    @Getter
+    @ConfigSerializable
+    public static class JournalConfig {
+        private final boolean enabled;
+        private final int syncInterval;
+
+        // Constructor
+        public JournalConfig() {
+            this.enabled = true;
+            this.syncInterval = 0;
+        }
+    }
+
+    @Getter
+    @ConfigSerializable
+    public static class ResidencyConfig {
+        private final String mode;
+        private final int idleTtl;
+
+        // Constructor
+        public ResidencyConfig() {
+            this.mode = "eager";
+            this.idleTtl = 600;
+        }
+
+        // Gets the account residency mode
+        public ResidencyMode getMode() {
+            return ResidencyMode.valueOf(this.mode.toUpperCase());
+        }
+    }
+
+    @Getter
+    @ConfigSerializable
+    public static class SnapshotConfig {
+        private final boolean enabled;
+        private final int interval;
+
+        // Constructor
+        public SnapshotConfig() {
+            this.enabled = true;
+            this.interval = 300;
+        }
     }
 
 }
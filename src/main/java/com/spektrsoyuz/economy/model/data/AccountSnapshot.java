@@ -0,0 +1,182 @@
+package com.spektrsoyuz.economy.model.data;
+
+import com.spektrsoyuz.economy.model.account.Account;
+import com.spektrsoyuz.economy.model.account.AccountKind;
+import com.spektrsoyuz.economy.model.account.Money;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of the account cache, read back with a single memory
+ * mapped pass on startup.
+ * <p>
+ * Layout: a header of magic, version, balance scale, high-water mark and
+ * record count, then one record per account holding the UUID as 16 bytes,
+ * the name as a length-prefixed UTF-8 string, the balance in minor units,
+ * the flags packed into one byte and the account kind as one byte (0 when
+ * unclassified), and finally a CRC32 of everything before it.
+ *
+ * @since 1.1.0
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class AccountSnapshot {
+
+    private static final int MAGIC = 0x45434f53; // "ECOS"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 4;
+
+    private static final int FROZEN = 1;
+    private static final int AUTO_DEPOSIT = 1 << 1;
+    private static final int AUTO_WITHDRAW = 1 << 2;
+
+    private static final AccountKind[] KINDS = AccountKind.values();
+
+    @Getter
+    private final long mark;
+    @Getter
+    private final int count;
+    private final ByteBuffer records;
+    private final int scale;
+
+    /**
+     * Writes a snapshot, replacing any previous one only once it is fully on disk.
+     *
+     * @param file     The snapshot file.
+     * @param mark     The database time the snapshot is consistent with, as seconds since the epoch.
+     * @param mementos The account states to write.
+     * @throws IOException If the snapshot could not be written.
+     */
+    public static void write(final Path file, final long mark, final Collection<Account.Memento> mementos) throws IOException {
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        final CRC32 crc = new CRC32();
+
+        try (final FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final BufferedOutputStream buffered = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            final DataOutputStream out = new DataOutputStream(new CheckedOutputStream(buffered, crc));
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(Money.getScale());
+            out.writeLong(mark);
+            out.writeInt(mementos.size());
+
+            for (final Account.Memento memento : mementos) {
+                final byte[] name = memento.name().getBytes(StandardCharsets.UTF_8);
+
+                out.writeLong(memento.id().getMostSignificantBits());
+                out.writeLong(memento.id().getLeastSignificantBits());
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeLong(memento.balance());
+                out.writeByte((memento.frozen() ? FROZEN : 0)
+                        | (memento.autoDeposit() ? AUTO_DEPOSIT : 0)
+                        | (memento.autoWithdraw() ? AUTO_WITHDRAW : 0));
+                out.writeByte(memento.kind() == null ? 0 : memento.kind().ordinal() + 1);
+            }
+
+            out.flush();
+
+            // The checksum itself is written past the checked stream
+            new DataOutputStream(buffered).writeInt((int) crc.getValue());
+            buffered.flush();
+            channel.force(true);
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a snapshot into memory and validates its header and checksum.
+     *
+     * @param file The snapshot file.
+     * @return The snapshot, or empty if there is none or it is not valid.
+     * @throws IOException If the snapshot could not be read.
+     */
+    public static Optional<AccountSnapshot> read(final Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+
+        final MappedByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE + 4 || channel.size() > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        final int end = buffer.limit() - 4;
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, end));
+
+        if ((int) crc.getValue() != buffer.getInt(end)) {
+            return Optional.empty();
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new AccountSnapshot(
+                buffer.getLong(12),
+                buffer.getInt(20),
+                buffer.slice(HEADER_SIZE, end - HEADER_SIZE),
+                buffer.getInt(8)
+        ));
+    }
+
+    /**
+     * Reads every account state in the snapshot, in file order.
+     *
+     * @param consumer Receives each account state.
+     */
+    public void forEach(final Consumer<Account.Memento> consumer) {
+        final ByteBuffer buffer = this.records.duplicate();
+
+        for (int i = 0; i < this.count; i++) {
+            final UUID id = new UUID(buffer.getLong(), buffer.getLong());
+
+            final byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(name);
+
+            final long balance = Money.rescale(buffer.getLong(), this.scale);
+            final byte flags = buffer.get();
+            final int kind = buffer.get();
+
+            consumer.accept(new Account.Memento(
+                    id,
+                    new String(name, StandardCharsets.UTF_8),
+                    balance,
+                    (flags & FROZEN) != 0,
+                    (flags & AUTO_DEPOSIT) != 0,
+                    (flags & AUTO_WITHDRAW) != 0,
+                    kind == 0 ? null : KINDS[kind - 1]
+            ));
+        }
+    }
+
+}
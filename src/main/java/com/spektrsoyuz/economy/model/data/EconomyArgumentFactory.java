@@ -6,6 +6,7 @@ import org.jdbi.v3.core.argument.ArgumentFactory;
 import org.jdbi.v3.core.config.ConfigRegistry;
 
 import java.lang.reflect.Type;
+import java.sql.Types;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,6 +19,12 @@ public final class EconomyArgumentFactory implements ArgumentFactory {
 
     @Override
     public Optional<Argument> build(final Type type, final Object value, final ConfigRegistry config) {
+        // Null UUIDs, such as the transfer of a plain transaction
+        if (value == null && type == UUID.class) {
+            return Optional.of((position, statement, ctx) ->
+                    statement.setNull(position, Types.BINARY));
+        }
+
         // Null values
         if (value == null) {
             return Optional.empty();
@@ -25,8 +32,9 @@ public final class EconomyArgumentFactory implements ArgumentFactory {
 
         // UUID
         if (type == UUID.class) {
+            final byte[] bytes = UuidColumnMapper.toBytes((UUID) value);
             return Optional.of((position, statement, ctx) ->
-                    statement.setString(position, value.toString()));
+                    statement.setBytes(position, bytes));
         }
 
         // Transactor
@@ -2,81 +2,252 @@ package com.spektrsoyuz.economy.model.data;
 
 import com.spektrsoyuz.economy.model.account.Account;
 import com.spektrsoyuz.economy.model.account.Transaction;
+import org.jdbi.v3.core.result.ResultIterable;
 import org.jdbi.v3.sqlobject.config.RegisterConstructorMapper;
 import org.jdbi.v3.sqlobject.customizer.Bind;
 import org.jdbi.v3.sqlobject.customizer.BindMethods;
+import org.jdbi.v3.sqlobject.customizer.FetchSize;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
+import java.util.UUID;
 
 /**
- * Data access object for the economy.
+ * Data access object for the economy. Statements that differ between
+ * databases are declared here and implemented by each dialect.
  *
  * @since 1.0.0
  */
 public interface EconomyDao {
 
     /**
-     * Creates the primary accounts table if it does not already exist.
+     * Creates the schema version table if it does not already exist.
+     */
+    @SqlUpdate("CREATE TABLE IF NOT EXISTS economy_schema (version INT NOT NULL)")
+    void createSchemaTable();
+
+    /**
+     * Gets the highest schema version applied to the database.
+     *
+     * @return The schema version, or 0 for a database that predates versioning.
+     */
+    @SqlQuery("SELECT COALESCE(MAX(version), 0) FROM economy_schema")
+    int getSchemaVersion();
+
+    /**
+     * Records that a schema version has been applied.
+     *
+     * @param version The applied version.
+     */
+    @SqlUpdate("INSERT INTO economy_schema (version) VALUES (:version)")
+    void setSchemaVersion(@Bind("version") int version);
+
+    /**
+     * Checks whether a table exists in the database.
+     *
+     * @param table The table name.
+     * @return The number of matching tables.
+     */
+    int countTables(String table);
+
+    /**
+     * Checks whether a table is keyed by binary UUIDs (schema version 2).
+     *
+     * @param table The table name.
+     * @return The number of binary {@code id} columns in the table.
+     */
+    int countBinaryKeys(String table);
+
+    /**
+     * Creates the original accounts table (schema version 1) if it does not already exist.
      */
-    @SqlUpdate("""
-            CREATE TABLE IF NOT EXISTS economy_accounts (
-                id VARCHAR(36) NOT NULL UNIQUE PRIMARY KEY,
-                timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-                name TEXT NOT NULL,
-                balance DECIMAL(10,2) NOT NULL,
-                frozen BOOLEAN NOT NULL,
-                auto_deposit BOOLEAN NOT NULL,
-                auto_withdraw BOOLEAN NOT NULL
-            )""")
     void createAccountsTable();
 
     /**
-     * Creates the transactions log table if it does not already exist.
+     * Creates the original transactions log table (schema version 1) if it does not already exist.
      */
-    @SqlUpdate("""
-            CREATE TABLE IF NOT EXISTS economy_transactions (
-                id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
-                timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-                account VARCHAR(36) NOT NULL,
-                actor TEXT NOT NULL,
-                name TEXT NOT NULL,
-                amount DECIMAL(10,2) NOT NULL
-            )""")
     void createTransactionsTable();
 
     /**
-     * Inserts or updates an account record in the database.
-     *
-     * @param account The account state to persist.
+     * Creates the accounts table with binary UUID keys and an indexed name
+     * (schema version 2) under a staging name.
+     */
+    void createBinaryAccountsTable();
+
+    /**
+     * Creates the transactions log table with binary UUID keys and an
+     * {@code (account, timestamp)} index (schema version 2) under a staging name.
+     */
+    void createBinaryTransactionsTable();
+
+    /**
+     * Indexes account balances for leaderboard queries (schema version 3).
+     */
+    void createBalanceIndex();
+
+    /**
+     * Indexes account timestamps for reconciling a snapshot (schema version 4).
+     */
+    void createAccountTimestampIndex();
+
+    /**
+     * Adds an indexed column linking the two legs of a transfer in the
+     * transactions log (schema version 5).
+     */
+    void createTransferColumn();
+
+    /**
+     * Adds a column holding the kind of owner behind each account
+     * (schema version 6).
+     */
+    void createKindColumn();
+
+    /**
+     * Classifies the unclassified accounts whose names follow the town,
+     * nation and tax account conventions. Player accounts cannot be told
+     * apart in the database and are classified by the server on load.
      */
     @SqlUpdate("""
-            INSERT INTO economy_accounts (id, name, balance, frozen, auto_deposit, auto_withdraw)
-            VALUES (:id, :name, :balance, :frozen, :autoDeposit, :autoWithdraw)
-            ON DUPLICATE KEY UPDATE name = :name, balance = :balance, frozen = :frozen, auto_deposit = :autoDeposit, auto_withdraw = :autoWithdraw
+            UPDATE economy_accounts SET kind = CASE
+                WHEN name = 'tax' THEN 'SERVER'
+                WHEN name LIKE 'town-%' THEN 'TOWN'
+                ELSE 'NATION'
+            END
+            WHERE kind IS NULL AND (name = 'tax' OR name LIKE 'town-%' OR name LIKE 'nation-%')
             """)
-    void saveAccount(@BindMethods Account.Memento account);
+    void classifyNamedAccounts();
 
     /**
-     * Records a new transaction entry in the database log.
+     * Gets the current database time, as seconds since the epoch.
      *
-     * @param transaction The transaction details to persist.
+     * @return The database time.
      */
-    @SqlUpdate("""
-            INSERT INTO economy_transactions (account, actor, name, amount)
-            VALUES (:accountId, :transactor, :accountName, :amount)
+    long getDatabaseTime();
+
+    /**
+     * Streams the account states written at or after a point in time.
+     *
+     * @param since     The database time, as seconds since the epoch.
+     * @param fetchSize The number of rows to fetch per round trip.
+     * @return A lazy iterable over the changed account mementos.
+     */
+    ResultIterable<Account.Memento> streamAccountsChangedSince(long since, int fetchSize);
+
+    /**
+     * Retrieves a page of rows from the original accounts table, ordered by ID.
+     *
+     * @param after The ID of the last row of the previous page.
+     * @param limit The maximum number of rows to return.
+     * @return The rows of the page.
+     */
+    @SqlQuery("""
+            SELECT id, timestamp, name, balance, frozen, auto_deposit, auto_withdraw FROM economy_accounts
+            WHERE id > :after ORDER BY id LIMIT :limit
+            """)
+    @RegisterConstructorMapper(AccountRow.class)
+    List<AccountRow> getLegacyAccounts(@Bind("after") String after, @Bind("limit") int limit);
+
+    /**
+     * Retrieves a page of rows from the original transactions log, ordered by ID.
+     *
+     * @param after The ID of the last row of the previous page.
+     * @param limit The maximum number of rows to return.
+     * @return The rows of the page.
+     */
+    @SqlQuery("""
+            SELECT id, timestamp, account, actor, name, amount FROM economy_transactions
+            WHERE id > :after ORDER BY id LIMIT :limit
+            """)
+    @RegisterConstructorMapper(TransactionRow.class)
+    List<TransactionRow> getLegacyTransactions(@Bind("after") long after, @Bind("limit") int limit);
+
+    /**
+     * Gets the highest transaction ID already copied into the staging table,
+     * so that an interrupted backfill resumes where it stopped.
+     *
+     * @return The highest copied ID, or 0 if none.
+     */
+    @SqlQuery("SELECT COALESCE(MAX(id), 0) FROM economy_transactions_v2")
+    long getBinaryTransactionCursor();
+
+    /**
+     * Copies a batch of account rows into the staging table, skipping rows
+     * that were already copied.
+     *
+     * @param rows The rows to copy.
+     */
+    void insertBinaryAccounts(List<AccountRow> rows);
+
+    /**
+     * Copies a batch of transaction rows into the staging table, skipping rows
+     * that were already copied.
+     *
+     * @param rows The rows to copy.
+     */
+    void insertBinaryTransactions(List<TransactionRow> rows);
+
+    /**
+     * Replaces the original tables with the staging tables, keeping the
+     * originals under a {@code _v1} suffix.
+     */
+    void swapBinaryTables();
+
+    /**
+     * Moves the staging tables to the final table names, for a fresh
+     * database that has no original tables to keep.
+     */
+    void renameBinaryTables();
+
+    /**
+     * Inserts or updates a batch of account records in the database.
+     *
+     * @param accounts The account states to persist.
+     */
+    void saveAccounts(List<Account.Memento> accounts);
+
+    /**
+     * Applies a batch of balance deltas to the stored balances, so that
+     * concurrent writers add to each other's changes instead of overwriting them.
+     *
+     * @param deltas The net balance changes to apply.
+     * @return The number of rows each delta updated, 0 where the row is missing.
+     */
+    @SqlBatch("UPDATE economy_accounts SET balance = ROUND(balance + :amount, 2), timestamp = CURRENT_TIMESTAMP WHERE id = :id")
+    int[] saveBalanceDeltas(@BindMethods List<Account.Delta> deltas);
+
+    /**
+     * Updates the name and flags of a batch of accounts, leaving the balance untouched.
+     *
+     * @param accounts The account states to persist.
+     */
+    @SqlBatch("""
+            UPDATE economy_accounts SET name = :name, frozen = :frozen, auto_deposit = :autoDeposit, auto_withdraw = :autoWithdraw, kind = :kind, timestamp = CURRENT_TIMESTAMP
+            WHERE id = :id
+            """)
+    void saveAccountMetadata(@BindMethods List<Account.Memento> accounts);
+
+    /**
+     * Records a batch of transaction entries in the database log.
+     *
+     * @param transactions The transaction details to persist.
+     */
+    @SqlBatch("""
+            INSERT INTO economy_transactions (account, actor, name, amount, transfer)
+            VALUES (:accountId, :transactor, :accountName, :amount, :transferId)
             """)
-    void saveTransaction(@BindMethods Transaction transaction);
+    void saveTransactions(@BindMethods List<Transaction> transactions);
 
     /**
      * Deletes a specific account from the database by its unique ID.
      *
-     * @param id The UUID string of the account to remove.
+     * @param id The UUID of the account to remove.
      */
     @SqlUpdate("DELETE FROM economy_accounts WHERE id = :id")
-    void deleteAccount(@Bind("id") String id);
+    void deleteAccount(@Bind("id") UUID id);
 
     /**
      * Deletes account records that have not been updated within
@@ -84,26 +255,24 @@ public interface EconomyDao {
      *
      * @param days The age threshold in days for expiration.
      */
-    @SqlUpdate("DELETE FROM economy_accounts WHERE timestamp < DATE_SUB(NOW(), INTERVAL :days DAY)")
-    void expireAccounts(@Bind("days") int days);
+    void expireAccounts(int days);
 
     /**
      * Deletes transaction logs older than the specified timeframe.
      *
      * @param days The age threshold in days for expiration.
      */
-    @SqlUpdate("DELETE FROM economy_transactions WHERE timestamp < DATE_SUB(NOW(), INTERVAL :days DAY)")
-    void expireTransactions(@Bind("days") int days);
+    void expireTransactions(int days);
 
     /**
      * Retrieves an account state from the database by its unique ID.
      *
-     * @param id The UUID string to search for.
+     * @param id The UUID to search for.
      * @return An {@link Optional} containing the account memento if found.
      */
-    @SqlQuery("SELECT id, name, balance, frozen, auto_deposit, auto_withdraw FROM economy_accounts WHERE id = :id")
+    @SqlQuery("SELECT id, name, balance, frozen, auto_deposit, auto_withdraw, kind FROM economy_accounts WHERE id = :id")
     @RegisterConstructorMapper(Account.Memento.class)
-    Optional<Account.Memento> getAccountById(@Bind("id") String id);
+    Optional<Account.Memento> getAccountById(@Bind("id") UUID id);
 
     /**
      * Retrieves an account state from the database by the owner's name.
@@ -111,17 +280,90 @@ public interface EconomyDao {
      * @param name The name to search for.
      * @return An {@link Optional} containing the account memento if found.
      */
-    @SqlQuery("SELECT id, name, balance, frozen, auto_deposit, auto_withdraw FROM economy_accounts WHERE name = :name")
+    @SqlQuery("SELECT id, name, balance, frozen, auto_deposit, auto_withdraw, kind FROM economy_accounts WHERE name = :name")
     @RegisterConstructorMapper(Account.Memento.class)
     Optional<Account.Memento> getAccountByName(@Bind("name") String name);
 
     /**
-     * Retrieves all account states currently stored in the database.
+     * Counts the player accounts with a higher stored balance, for ranking
+     * an account without holding every account in memory. Accounts not yet
+     * classified are counted as players, as most of them are.
+     *
+     * @param balance The balance to compare against.
+     * @return The number of accounts ranked above the balance.
+     */
+    @SqlQuery("SELECT COUNT(*) FROM economy_accounts WHERE balance > :balance AND (kind IS NULL OR kind = 'PLAYER')")
+    int countPlayerAccountsAbove(@Bind("balance") @MinorUnits long balance);
+
+    /**
+     * Retrieves the accounts with the highest non-zero balances.
      *
-     * @return A set containing all account mementos.
+     * @param limit The maximum number of accounts to return.
+     * @return The account mementos, highest balance first.
      */
-    @SqlQuery("SELECT id, name, balance, frozen, auto_deposit, auto_withdraw FROM economy_accounts")
+    @SqlQuery("""
+            SELECT id, name, balance, frozen, auto_deposit, auto_withdraw, kind FROM economy_accounts
+            WHERE balance <> 0 ORDER BY balance DESC, name LIMIT :limit
+            """)
     @RegisterConstructorMapper(Account.Memento.class)
-    Set<Account.Memento> getAccounts();
+    List<Account.Memento> getTopAccounts(@Bind("limit") int limit);
+
+    /**
+     * Counts the accounts stored in the database.
+     *
+     * @return The number of accounts.
+     */
+    @SqlQuery("SELECT COUNT(*) FROM economy_accounts")
+    int countAccounts();
+
+    /**
+     * Streams all account states currently stored in the database. Rows are
+     * fetched from the server in pages of the given size as the result is
+     * iterated, so the result must be consumed while the handle is open.
+     *
+     * @param fetchSize The number of rows to fetch per round trip.
+     * @return A lazy iterable over all account mementos.
+     */
+    @SqlQuery("SELECT id, name, balance, frozen, auto_deposit, auto_withdraw, kind FROM economy_accounts")
+    @RegisterConstructorMapper(Account.Memento.class)
+    ResultIterable<Account.Memento> streamAccounts(@FetchSize int fetchSize);
+
+    /**
+     * Streams the ID of every stored account, without reading the rest of the rows.
+     *
+     * @param fetchSize The number of rows to fetch per round trip.
+     * @return A lazy iterable over all account IDs.
+     */
+    @SqlQuery("SELECT id FROM economy_accounts")
+    ResultIterable<UUID> streamAccountIds(@FetchSize int fetchSize);
+
+    /**
+     * A row of the accounts table, copied as-is by schema migrations.
+     */
+    record AccountRow(
+            UUID id,
+            String timestamp,
+            String name,
+            BigDecimal balance,
+            boolean frozen,
+            boolean autoDeposit,
+            boolean autoWithdraw
+    ) {
+
+    }
+
+    /**
+     * A row of the transactions log, copied as-is by schema migrations.
+     */
+    record TransactionRow(
+            long id,
+            String timestamp,
+            UUID account,
+            String actor,
+            String name,
+            BigDecimal amount
+    ) {
+
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.spektrsoyuz.economy.model.data;
+
+/**
+ * Model record for the result of a batched database flush.
+ *
+ * @param rows         The number of rows written.
+ * @param chunks       The number of chunks committed.
+ * @param failedChunks The number of chunks that were rolled back.
+ * @param elapsed      The time spent flushing, in milliseconds.
+ * @since 1.1.0
+ */
+public record FlushStats(
+        int rows,
+        int chunks,
+        int failedChunks,
+        long elapsed
+) {
+
+    /**
+     * Combines the statistics of two flushes that ran side by side.
+     *
+     * @param other The other flush.
+     * @return The combined statistics.
+     */
+    public FlushStats plus(final FlushStats other) {
+        return new FlushStats(
+                this.rows + other.rows,
+                this.chunks + other.chunks,
+                this.failedChunks + other.failedChunks,
+                Math.max(this.elapsed, other.elapsed)
+        );
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.spektrsoyuz.economy.model.data;
+
+import com.spektrsoyuz.economy.model.account.Transaction;
+
+/**
+ * Model record for a balance mutation read back from the journal.
+ *
+ * @param segment     The journal segment the entry was written to.
+ * @param transaction The transaction that changed the balance.
+ * @param balance     The account balance after the transaction, in minor units.
+ * @since 1.1.0
+ */
+public record JournalEntry(
+        long segment,
+        Transaction transaction,
+        long balance
+) {
+
+}
@@ -0,0 +1,21 @@
+package com.spektrsoyuz.economy.model.data;
+
+import org.jdbi.v3.core.qualifier.Qualifier;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Qualifies a {@code long} amount held in minor units, so that it is bound
+ * to and read from a decimal column rather than an integer one.
+ *
+ * @since 1.1.0
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER})
+public @interface MinorUnits {
+
+}
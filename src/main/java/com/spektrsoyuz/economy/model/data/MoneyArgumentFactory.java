@@ -0,0 +1,30 @@
+package com.spektrsoyuz.economy.model.data;
+
+import com.spektrsoyuz.economy.model.account.Money;
+import org.jdbi.v3.core.argument.Argument;
+import org.jdbi.v3.core.argument.QualifiedArgumentFactory;
+import org.jdbi.v3.core.config.ConfigRegistry;
+import org.jdbi.v3.core.qualifier.QualifiedType;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Argument factory for {@link MinorUnits} amounts, bound as decimals.
+ *
+ * @since 1.1.0
+ */
+public final class MoneyArgumentFactory implements QualifiedArgumentFactory {
+
+    @Override
+    public Optional<Argument> build(final QualifiedType<?> type, final Object value, final ConfigRegistry config) {
+        if (value == null || !type.hasQualifier(MinorUnits.class)) {
+            return Optional.empty();
+        }
+
+        final BigDecimal decimal = Money.toDecimal((Long) value);
+        return Optional.of((position, statement, ctx) ->
+                statement.setBigDecimal(position, decimal));
+    }
+
+}
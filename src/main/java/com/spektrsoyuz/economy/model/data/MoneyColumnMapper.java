@@ -0,0 +1,28 @@
+package com.spektrsoyuz.economy.model.data;
+
+import com.spektrsoyuz.economy.model.account.Money;
+import org.jdbi.v3.core.mapper.ColumnMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Column mapper for decimal amounts read into {@link MinorUnits} longs.
+ *
+ * @since 1.1.0
+ */
+public final class MoneyColumnMapper implements ColumnMapper<Long> {
+
+    @Override
+    public Long map(final ResultSet r, final int columnNumber, final StatementContext ctx) throws SQLException {
+        final BigDecimal decimal = r.getBigDecimal(columnNumber);
+        if (decimal == null) {
+            return 0L;
+        }
+
+        return Money.of(decimal);
+    }
+
+}
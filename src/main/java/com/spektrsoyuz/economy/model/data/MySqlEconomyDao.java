@@ -0,0 +1,154 @@
+package com.spektrsoyuz.economy.model.data;
+
+import com.spektrsoyuz.economy.model.account.Account;
+import org.jdbi.v3.core.result.ResultIterable;
+import org.jdbi.v3.sqlobject.config.RegisterConstructorMapper;
+import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.customizer.BindMethods;
+import org.jdbi.v3.sqlobject.customizer.FetchSize;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+
+import java.util.List;
+
+/**
+ * Data access object for the economy in the MySQL dialect.
+ *
+ * @since 1.1.0
+ */
+public interface MySqlEconomyDao extends EconomyDao {
+
+    @Override
+    @SqlUpdate("""
+            CREATE TABLE IF NOT EXISTS economy_accounts (
+                id VARCHAR(36) NOT NULL UNIQUE PRIMARY KEY,
+                timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                name TEXT NOT NULL,
+                balance DECIMAL(10,2) NOT NULL,
+                frozen BOOLEAN NOT NULL,
+                auto_deposit BOOLEAN NOT NULL,
+                auto_withdraw BOOLEAN NOT NULL
+            )""")
+    void createAccountsTable();
+
+    @Override
+    @SqlUpdate("""
+            CREATE TABLE IF NOT EXISTS economy_transactions (
+                id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                account VARCHAR(36) NOT NULL,
+                actor TEXT NOT NULL,
+                name TEXT NOT NULL,
+                amount DECIMAL(10,2) NOT NULL
+            )""")
+    void createTransactionsTable();
+
+    @Override
+    @SqlQuery("SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = :table")
+    int countTables(@Bind("table") String table);
+
+    @Override
+    @SqlQuery("""
+            SELECT COUNT(*) FROM information_schema.columns
+            WHERE table_schema = DATABASE() AND table_name = :table AND column_name = 'id' AND data_type = 'binary'""")
+    int countBinaryKeys(@Bind("table") String table);
+
+    @Override
+    @SqlUpdate("""
+            CREATE TABLE IF NOT EXISTS economy_accounts_v2 (
+                id BINARY(16) NOT NULL PRIMARY KEY,
+                timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                name VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL,
+                balance DECIMAL(10,2) NOT NULL,
+                frozen BOOLEAN NOT NULL,
+                auto_deposit BOOLEAN NOT NULL,
+                auto_withdraw BOOLEAN NOT NULL,
+                INDEX idx_name (name)
+            )""")
+    void createBinaryAccountsTable();
+
+    @Override
+    @SqlUpdate("""
+            CREATE TABLE IF NOT EXISTS economy_transactions_v2 (
+                id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                account BINARY(16) NOT NULL,
+                actor VARCHAR(16) NOT NULL,
+                name VARCHAR(255) NOT NULL,
+                amount DECIMAL(10,2) NOT NULL,
+                INDEX idx_account_timestamp (account, timestamp),
+                INDEX idx_timestamp (timestamp)
+            )""")
+    void createBinaryTransactionsTable();
+
+    @Override
+    @SqlBatch("""
+            INSERT IGNORE INTO economy_accounts_v2 (id, timestamp, name, balance, frozen, auto_deposit, auto_withdraw)
+            VALUES (:id, :timestamp, :name, :balance, :frozen, :autoDeposit, :autoWithdraw)
+            """)
+    void insertBinaryAccounts(@BindMethods List<AccountRow> rows);
+
+    @Override
+    @SqlBatch("""
+            INSERT IGNORE INTO economy_transactions_v2 (id, timestamp, account, actor, name, amount)
+            VALUES (:id, :timestamp, :account, :actor, :name, :amount)
+            """)
+    void insertBinaryTransactions(@BindMethods List<TransactionRow> rows);
+
+    @Override
+    @SqlUpdate("""
+            RENAME TABLE economy_accounts TO economy_accounts_v1, economy_accounts_v2 TO economy_accounts,
+            economy_transactions TO economy_transactions_v1, economy_transactions_v2 TO economy_transactions
+            """)
+    void swapBinaryTables();
+
+    @Override
+    @SqlUpdate("RENAME TABLE economy_accounts_v2 TO economy_accounts, economy_transactions_v2 TO economy_transactions")
+    void renameBinaryTables();
+
+    @Override
+    @SqlUpdate("CREATE INDEX idx_balance ON economy_accounts (balance)")
+    void createBalanceIndex();
+
+    @Override
+    @SqlUpdate("CREATE INDEX idx_timestamp ON economy_accounts (timestamp)")
+    void createAccountTimestampIndex();
+
+    @Override
+    @SqlUpdate("ALTER TABLE economy_transactions ADD COLUMN transfer BINARY(16) NULL, ADD INDEX idx_transfer (transfer)")
+    void createTransferColumn();
+
+    @Override
+    @SqlUpdate("ALTER TABLE economy_accounts ADD COLUMN kind VARCHAR(16) NULL")
+    void createKindColumn();
+
+    @Override
+    @SqlQuery("SELECT UNIX_TIMESTAMP()")
+    long getDatabaseTime();
+
+    @Override
+    @SqlQuery("""
+            SELECT id, name, balance, frozen, auto_deposit, auto_withdraw, kind FROM economy_accounts
+            WHERE timestamp >= FROM_UNIXTIME(:since)
+            """)
+    @RegisterConstructorMapper(Account.Memento.class)
+    ResultIterable<Account.Memento> streamAccountsChangedSince(@Bind("since") long since, @FetchSize int fetchSize);
+
+    @Override
+    @SqlBatch("""
+            INSERT INTO economy_accounts (id, name, balance, frozen, auto_deposit, auto_withdraw, kind)
+            VALUES (:id, :name, :balance, :frozen, :autoDeposit, :autoWithdraw, :kind)
+            ON DUPLICATE KEY UPDATE name = VALUES(name), balance = VALUES(balance), frozen = VALUES(frozen), auto_deposit = VALUES(auto_deposit), auto_withdraw = VALUES(auto_withdraw), kind = VALUES(kind), timestamp = CURRENT_TIMESTAMP
+            """)
+    void saveAccounts(@BindMethods List<Account.Memento> accounts);
+
+    @Override
+    @SqlUpdate("DELETE FROM economy_accounts WHERE timestamp < DATE_SUB(NOW(), INTERVAL :days DAY)")
+    void expireAccounts(@Bind("days") int days);
+
+    @Override
+    @SqlUpdate("DELETE FROM economy_transactions WHERE timestamp < DATE_SUB(NOW(), INTERVAL :days DAY)")
+    void expireTransactions(@Bind("days") int days);
+
+}
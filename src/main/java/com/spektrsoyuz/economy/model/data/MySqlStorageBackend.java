@@ -0,0 +1,46 @@
+package com.spektrsoyuz.economy.model.data;
+
+import com.spektrsoyuz.economy.model.config.StorageConfig;
+import com.zaxxer.hikari.HikariConfig;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Storage backend for a MySQL server.
+ *
+ * @since 1.1.0
+ */
+public final class MySqlStorageBackend implements StorageBackend {
+
+    @Override
+    public @NotNull HikariConfig createHikariConfig(final StorageConfig storageConfig) {
+        final HikariConfig hikariConfig = new HikariConfig();
+        final String url = String.format("jdbc:mysql://%s:%s/%s",
+                storageConfig.getHost(),
+                storageConfig.getPort(),
+                storageConfig.getDatabase()
+        );
+
+        hikariConfig.setJdbcUrl(url);
+        hikariConfig.setUsername(storageConfig.getUsername());
+        hikariConfig.setPassword(storageConfig.getPassword());
+        hikariConfig.setMaximumPoolSize(Math.max(1, storageConfig.getPoolSize()));
+
+        // Performance optimizations for MySQL
+        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
+        hikariConfig.addDataSourceProperty("rewriteBatchedStatements", "true");
+        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
+        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
+
+        // Honor the statement fetch size instead of buffering whole result sets
+        hikariConfig.addDataSourceProperty("useCursorFetch", "true");
+
+        return hikariConfig;
+    }
+
+    @Override
+    public @NotNull Class<? extends EconomyDao> getDaoType() {
+        return MySqlEconomyDao.class;
+    }
+
+}
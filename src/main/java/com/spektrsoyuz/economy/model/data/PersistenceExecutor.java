@@ -0,0 +1,162 @@
+package com.spektrsoyuz.economy.model.data;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded executor for blocking database work, owned by the plugin so that
+ * database stalls never occupy the common pool shared with the server.
+ *
+ * @since 1.1.0
+ */
+public final class PersistenceExecutor implements Executor {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final RejectionPolicy rejectionPolicy;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong callerRuns = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Constructs a new {@code PersistenceExecutor}.
+     *
+     * @param type            The kind of threads to run tasks on.
+     * @param threads         The number of platform threads, matching the connection pool size.
+     * @param queueSize       The maximum number of tasks waiting for a thread.
+     * @param rejectionPolicy The behavior when the queue is full.
+     */
+    public PersistenceExecutor(
+            final Type type,
+            final int threads,
+            final int queueSize,
+            final RejectionPolicy rejectionPolicy
+    ) {
+        this.delegate = switch (type) {
+            case VIRTUAL -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                    .name("economy-persistence-", 0)
+                    .factory());
+            case PLATFORM -> Executors.newFixedThreadPool(threads, Thread.ofPlatform()
+                    .name("economy-persistence-", 0)
+                    .daemon(true)
+                    .factory());
+        };
+        this.permits = new Semaphore(Math.max(1, threads) + Math.max(0, queueSize));
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        if (!this.permits.tryAcquire()) {
+            switch (this.rejectionPolicy) {
+                case CALLER_RUNS -> {
+                    // Runs on the submitting thread, which may be a tick thread
+                    this.callerRuns.incrementAndGet();
+                    command.run();
+                    return;
+                }
+                case BLOCK -> this.permits.acquireUninterruptibly();
+                case ABORT -> {
+                    this.rejected.incrementAndGet();
+                    throw new RejectedExecutionException("Persistence queue is full");
+                }
+            }
+        }
+
+        this.pending.incrementAndGet();
+
+        try {
+            this.delegate.execute(() -> {
+                this.active.incrementAndGet();
+                try {
+                    command.run();
+                } finally {
+                    this.active.decrementAndGet();
+                    this.pending.decrementAndGet();
+                    this.permits.release();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            this.pending.decrementAndGet();
+            this.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of tasks currently running.
+     *
+     * @return The active task count.
+     */
+    public int getActiveCount() {
+        return this.active.get();
+    }
+
+    /**
+     * Gets the number of tasks submitted but not yet started.
+     *
+     * @return The queue depth.
+     */
+    public int getQueueDepth() {
+        return Math.max(0, this.pending.get() - this.active.get());
+    }
+
+    /**
+     * Gets the number of submissions that found the queue full and were run
+     * on the submitting thread instead.
+     *
+     * @return The caller-runs submission count.
+     */
+    public long getCallerRunsCount() {
+        return this.callerRuns.get();
+    }
+
+    /**
+     * Gets the number of submissions that found the queue full and were
+     * refused.
+     *
+     * @return The rejected submission count.
+     */
+    public long getRejectedCount() {
+        return this.rejected.get();
+    }
+
+    /**
+     * Stops accepting tasks and waits for queued tasks to finish.
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit    The unit of the timeout.
+     * @return {@code true} if all tasks finished before the timeout.
+     */
+    public boolean shutdown(final long timeout, final TimeUnit unit) {
+        this.delegate.shutdown();
+
+        try {
+            return this.delegate.awaitTermination(timeout, unit);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Model enum for the kind of threads used by the executor.
+     */
+    public enum Type {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    /**
+     * Model enum for the behavior when the submission queue is full.
+     */
+    public enum RejectionPolicy {
+        CALLER_RUNS,
+        BLOCK,
+        ABORT
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.spektrsoyuz.economy.model.data;
+
+import lombok.RequiredArgsConstructor;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jdbi.v3.core.Jdbi;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Versioned migrations for the economy schema. Each applied version is
+ * recorded in the {@code economy_schema} table, so every migration runs once.
+ *
+ * @since 1.1.0
+ */
+@RequiredArgsConstructor
+public final class SchemaMigrator {
+
+    // Log backfill progress every this many chunks
+    private static final int PROGRESS_INTERVAL = 20;
+
+    private final ComponentLogger logger;
+    private final Jdbi jdbi;
+    private final Class<? extends EconomyDao> daoType;
+    private final int chunkSize;
+
+    /**
+     * Applies every migration newer than the version stored in the database.
+     */
+    public void migrate() {
+        final EconomyDao dao = this.jdbi.onDemand(this.daoType);
+
+        dao.createSchemaTable();
+        int version = dao.getSchemaVersion();
+
+        // A fresh database starts at the binary layout, without version 1 tables to migrate
+        if (version < 1 && dao.countTables("economy_accounts") == 0) {
+            this.createBinaryTables(dao);
+            version = 2;
+        }
+
+        // MySQL commits a rename on its own, so a start cut short before the version was recorded finds binary tables
+        if (version < 2 && dao.countBinaryKeys("economy_accounts") > 0) {
+            dao.setSchemaVersion(2);
+            version = 2;
+        }
+
+        if (version < 1) {
+            dao.createAccountsTable();
+            dao.createTransactionsTable();
+            dao.setSchemaVersion(1);
+        }
+
+        if (version < 2) {
+            this.migrateBinaryKeys(dao);
+            dao.setSchemaVersion(2);
+        }
+
+        if (version < 3) {
+            dao.createBalanceIndex();
+            dao.setSchemaVersion(3);
+        }
+
+        if (version < 4) {
+            dao.createAccountTimestampIndex();
+            dao.setSchemaVersion(4);
+        }
+
+        if (version < 5) {
+            dao.createTransferColumn();
+            dao.setSchemaVersion(5);
+        }
+
+        if (version < 6) {
+            dao.createKindColumn();
+            dao.classifyNamedAccounts();
+            dao.setSchemaVersion(6);
+        }
+    }
+
+    /**
+     * Versions 1 and 2 for a fresh database: creates the binary key tables
+     * under their staging names, renames them and records version 2. MySQL
+     * commits the rename on its own, outside the transaction, so if the
+     * version is not recorded the next start finds the binary tables by
+     * their key column and records it then.
+     *
+     * @param dao The data access object.
+     */
+    private void createBinaryTables(final EconomyDao dao) {
+        dao.createBinaryAccountsTable();
+        dao.createBinaryTransactionsTable();
+
+        this.jdbi.useTransaction(handle -> {
+            final EconomyDao transactional = handle.attach(this.daoType);
+            transactional.renameBinaryTables();
+            transactional.setSchemaVersion(2);
+        });
+
+        this.logger.info("Created database tables");
+    }
+
+    /**
+     * Version 2: moves both tables to binary UUID keys, an indexed
+     * case-insensitive name and an {@code (account, timestamp)} index.
+     * Rows are copied into staging tables in chunks, each committed on its
+     * own, and an interrupted backfill resumes on the next start.
+     *
+     * @param dao The data access object.
+     */
+    private void migrateBinaryKeys(final EconomyDao dao) {
+        // The tables were already swapped before the version could be recorded
+        if (dao.countTables("economy_accounts_v1") > 0) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        this.logger.info("Migrating database to binary UUID keys");
+
+        dao.createBinaryAccountsTable();
+        dao.createBinaryTransactionsTable();
+
+        // Backfill accounts, paging by ID
+        String accountCursor = "";
+        int accounts = 0;
+        int chunks = 0;
+
+        while (true) {
+            final List<EconomyDao.AccountRow> rows = dao.getLegacyAccounts(accountCursor, this.chunkSize);
+            if (rows.isEmpty()) break;
+
+            this.jdbi.useTransaction(handle -> handle.attach(this.daoType).insertBinaryAccounts(rows));
+            accountCursor = rows.getLast().id().toString();
+            accounts += rows.size();
+
+            if (++chunks % PROGRESS_INTERVAL == 0) {
+                this.logger.info("Migrated {} accounts", accounts);
+            }
+        }
+
+        // Backfill transactions, resuming after the last copied ID
+        long transactionCursor = dao.getBinaryTransactionCursor();
+        int transactions = 0;
+        chunks = 0;
+
+        while (true) {
+            final List<EconomyDao.TransactionRow> rows = dao.getLegacyTransactions(transactionCursor, this.chunkSize);
+            if (rows.isEmpty()) break;
+
+            this.jdbi.useTransaction(handle -> handle.attach(this.daoType).insertBinaryTransactions(rows));
+            transactionCursor = rows.getLast().id();
+            transactions += rows.size();
+
+            if (++chunks % PROGRESS_INTERVAL == 0) {
+                this.logger.info("Migrated {} transactions", transactions);
+            }
+        }
+
+        this.jdbi.useTransaction(handle -> handle.attach(this.daoType).swapBinaryTables());
+
+        this.logger.info("Migrated {} accounts and {} transactions in {}ms, the original tables were kept with a _v1 suffix",
+                accounts,
+                transactions,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        );
+    }
+
+}
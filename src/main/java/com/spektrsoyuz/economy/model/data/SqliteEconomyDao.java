@@ -0,0 +1,155 @@
+package com.spektrsoyuz.economy.model.data;
+
+import com.spektrsoyuz.economy.model.account.Account;
+import org.jdbi.v3.core.result.ResultIterable;
+import org.jdbi.v3.sqlobject.config.RegisterConstructorMapper;
+import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.customizer.BindMethods;
+import org.jdbi.v3.sqlobject.customizer.FetchSize;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlScript;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+
+import java.util.List;
+
+/**
+ * Data access object for the economy in the SQLite dialect.
+ *
+ * @since 1.1.0
+ */
+public interface SqliteEconomyDao extends EconomyDao {
+
+    @Override
+    @SqlUpdate("""
+            CREATE TABLE IF NOT EXISTS economy_accounts (
+                id VARCHAR(36) NOT NULL PRIMARY KEY,
+                timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                name TEXT NOT NULL,
+                balance DECIMAL(10,2) NOT NULL,
+                frozen BOOLEAN NOT NULL,
+                auto_deposit BOOLEAN NOT NULL,
+                auto_withdraw BOOLEAN NOT NULL
+            )""")
+    void createAccountsTable();
+
+    @Override
+    @SqlUpdate("""
+            CREATE TABLE IF NOT EXISTS economy_transactions (
+                id INTEGER PRIMARY KEY,
+                timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                account VARCHAR(36) NOT NULL,
+                actor TEXT NOT NULL,
+                name TEXT NOT NULL,
+                amount DECIMAL(10,2) NOT NULL
+            )""")
+    void createTransactionsTable();
+
+    @Override
+    @SqlQuery("SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = :table")
+    int countTables(@Bind("table") String table);
+
+    @Override
+    @SqlQuery("SELECT COUNT(*) FROM pragma_table_info(:table) WHERE name = 'id' AND type = 'BLOB'")
+    int countBinaryKeys(@Bind("table") String table);
+
+    @Override
+    @SqlScript("""
+            CREATE TABLE IF NOT EXISTS economy_accounts_v2 (
+                id BLOB NOT NULL PRIMARY KEY,
+                timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                name TEXT NOT NULL COLLATE NOCASE,
+                balance DECIMAL(10,2) NOT NULL,
+                frozen BOOLEAN NOT NULL,
+                auto_deposit BOOLEAN NOT NULL,
+                auto_withdraw BOOLEAN NOT NULL
+            ) WITHOUT ROWID""")
+    @SqlScript("CREATE INDEX IF NOT EXISTS idx_economy_accounts_name ON economy_accounts_v2 (name)")
+    void createBinaryAccountsTable();
+
+    @Override
+    @SqlScript("""
+            CREATE TABLE IF NOT EXISTS economy_transactions_v2 (
+                id INTEGER PRIMARY KEY,
+                timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                account BLOB NOT NULL,
+                actor TEXT NOT NULL,
+                name TEXT NOT NULL,
+                amount DECIMAL(10,2) NOT NULL
+            )""")
+    @SqlScript("CREATE INDEX IF NOT EXISTS idx_economy_transactions_account_timestamp ON economy_transactions_v2 (account, timestamp)")
+    @SqlScript("CREATE INDEX IF NOT EXISTS idx_economy_transactions_timestamp ON economy_transactions_v2 (timestamp)")
+    void createBinaryTransactionsTable();
+
+    @Override
+    @SqlBatch("""
+            INSERT OR IGNORE INTO economy_accounts_v2 (id, timestamp, name, balance, frozen, auto_deposit, auto_withdraw)
+            VALUES (:id, :timestamp, :name, :balance, :frozen, :autoDeposit, :autoWithdraw)
+            """)
+    void insertBinaryAccounts(@BindMethods List<AccountRow> rows);
+
+    @Override
+    @SqlBatch("""
+            INSERT OR IGNORE INTO economy_transactions_v2 (id, timestamp, account, actor, name, amount)
+            VALUES (:id, :timestamp, :account, :actor, :name, :amount)
+            """)
+    void insertBinaryTransactions(@BindMethods List<TransactionRow> rows);
+
+    @Override
+    @SqlScript("ALTER TABLE economy_accounts RENAME TO economy_accounts_v1")
+    @SqlScript("ALTER TABLE economy_accounts_v2 RENAME TO economy_accounts")
+    @SqlScript("ALTER TABLE economy_transactions RENAME TO economy_transactions_v1")
+    @SqlScript("ALTER TABLE economy_transactions_v2 RENAME TO economy_transactions")
+    void swapBinaryTables();
+
+    @Override
+    @SqlScript("ALTER TABLE economy_accounts_v2 RENAME TO economy_accounts")
+    @SqlScript("ALTER TABLE economy_transactions_v2 RENAME TO economy_transactions")
+    void renameBinaryTables();
+
+    @Override
+    @SqlUpdate("CREATE INDEX IF NOT EXISTS idx_economy_accounts_balance ON economy_accounts (balance)")
+    void createBalanceIndex();
+
+    @Override
+    @SqlUpdate("CREATE INDEX IF NOT EXISTS idx_economy_accounts_timestamp ON economy_accounts (timestamp)")
+    void createAccountTimestampIndex();
+
+    @Override
+    @SqlScript("ALTER TABLE economy_transactions ADD COLUMN transfer BLOB")
+    @SqlScript("CREATE INDEX IF NOT EXISTS idx_economy_transactions_transfer ON economy_transactions (transfer)")
+    void createTransferColumn();
+
+    @Override
+    @SqlUpdate("ALTER TABLE economy_accounts ADD COLUMN kind VARCHAR(16)")
+    void createKindColumn();
+
+    @Override
+    @SqlQuery("SELECT CAST(strftime('%s', 'now') AS INTEGER)")
+    long getDatabaseTime();
+
+    @Override
+    @SqlQuery("""
+            SELECT id, name, balance, frozen, auto_deposit, auto_withdraw, kind FROM economy_accounts
+            WHERE timestamp >= datetime(:since, 'unixepoch')
+            """)
+    @RegisterConstructorMapper(Account.Memento.class)
+    ResultIterable<Account.Memento> streamAccountsChangedSince(@Bind("since") long since, @FetchSize int fetchSize);
+
+    @Override
+    @SqlBatch("""
+            INSERT INTO economy_accounts (id, name, balance, frozen, auto_deposit, auto_withdraw, kind)
+            VALUES (:id, :name, :balance, :frozen, :autoDeposit, :autoWithdraw, :kind)
+            ON CONFLICT (id) DO UPDATE SET name = excluded.name, balance = excluded.balance, frozen = excluded.frozen, auto_deposit = excluded.auto_deposit, auto_withdraw = excluded.auto_withdraw, kind = excluded.kind, timestamp = CURRENT_TIMESTAMP
+            """)
+    void saveAccounts(@BindMethods List<Account.Memento> accounts);
+
+    @Override
+    @SqlUpdate("DELETE FROM economy_accounts WHERE timestamp < datetime('now', '-' || :days || ' days')")
+    void expireAccounts(@Bind("days") int days);
+
+    @Override
+    @SqlUpdate("DELETE FROM economy_transactions WHERE timestamp < datetime('now', '-' || :days || ' days')")
+    void expireTransactions(@Bind("days") int days);
+
+}
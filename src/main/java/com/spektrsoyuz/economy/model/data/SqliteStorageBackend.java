@@ -0,0 +1,45 @@
+package com.spektrsoyuz.economy.model.data;
+
+import com.spektrsoyuz.economy.model.config.StorageConfig;
+import com.zaxxer.hikari.HikariConfig;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+
+/**
+ * Storage backend for an embedded SQLite database in the plugin data folder.
+ *
+ * @since 1.1.0
+ */
+@RequiredArgsConstructor
+public final class SqliteStorageBackend implements StorageBackend {
+
+    private final Path dataPath;
+
+    @Override
+    public @NotNull HikariConfig createHikariConfig(final StorageConfig storageConfig) {
+        final HikariConfig hikariConfig = new HikariConfig();
+        final Path file = this.dataPath.resolve(storageConfig.getDatabase() + ".db");
+
+        hikariConfig.setJdbcUrl("jdbc:sqlite:" + file.toAbsolutePath());
+
+        // SQLite allows a single writer, so a single connection avoids lock contention
+        hikariConfig.setMaximumPoolSize(1);
+
+        // Write-ahead logging lets reads proceed during writes, and the plugin
+        // journal covers the durability that synchronous = FULL would add
+        hikariConfig.addDataSourceProperty("journal_mode", "WAL");
+        hikariConfig.addDataSourceProperty("synchronous", "NORMAL");
+        hikariConfig.addDataSourceProperty("busy_timeout", "5000");
+        hikariConfig.addDataSourceProperty("foreign_keys", "false");
+
+        return hikariConfig;
+    }
+
+    @Override
+    public @NotNull Class<? extends EconomyDao> getDaoType() {
+        return SqliteEconomyDao.class;
+    }
+
+}
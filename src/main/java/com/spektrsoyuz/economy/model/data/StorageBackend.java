@@ -0,0 +1,30 @@
+package com.spektrsoyuz.economy.model.data;
+
+import com.spektrsoyuz.economy.model.config.StorageConfig;
+import com.zaxxer.hikari.HikariConfig;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Storage backend for the economy, supplying the connection pool settings
+ * and the SQL dialect of a database.
+ *
+ * @since 1.1.0
+ */
+public interface StorageBackend {
+
+    /**
+     * Configures the HikariCP connection pool for this backend.
+     *
+     * @param storageConfig The configuration containing database settings.
+     * @return A configured {@link HikariConfig} instance.
+     */
+    @NotNull HikariConfig createHikariConfig(StorageConfig storageConfig);
+
+    /**
+     * Gets the data access object written in this backend's SQL dialect.
+     *
+     * @return The DAO type to attach.
+     */
+    @NotNull Class<? extends EconomyDao> getDaoType();
+
+}
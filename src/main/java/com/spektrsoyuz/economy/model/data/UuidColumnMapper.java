@@ -0,0 +1,58 @@
+package com.spektrsoyuz.economy.model.data;
+
+import org.jdbi.v3.core.mapper.ColumnMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Column mapper for UUIDs stored as 16 raw bytes. Columns from the
+ * original schema, which hold the 36 character text form, are also read.
+ *
+ * @since 1.1.0
+ */
+public final class UuidColumnMapper implements ColumnMapper<UUID> {
+
+    @Override
+    public UUID map(final ResultSet r, final int columnNumber, final StatementContext ctx) throws SQLException {
+        final byte[] bytes = r.getBytes(columnNumber);
+        if (bytes == null) {
+            return null;
+        }
+
+        if (bytes.length == 16) {
+            return fromBytes(bytes);
+        }
+
+        return UUID.fromString(new String(bytes, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Converts a UUID into its 16 byte big-endian form.
+     *
+     * @param id The UUID to convert.
+     * @return The UUID bytes.
+     */
+    public static byte[] toBytes(final UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * Converts 16 big-endian bytes back into a UUID.
+     *
+     * @param bytes The UUID bytes.
+     * @return The UUID.
+     */
+    public static UUID fromBytes(final byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+}
@@ -4,6 +4,8 @@ import com.spektrsoyuz.economy.Constants;
 import com.spektrsoyuz.economy.EconomyPlugin;
 import com.spektrsoyuz.economy.EconomyUtils;
 import com.spektrsoyuz.economy.model.account.Account;
+import com.spektrsoyuz.economy.model.account.AccountKind;
+import com.spektrsoyuz.economy.model.account.Money;
 import com.spektrsoyuz.economy.model.account.Transactor;
 import com.spektrsoyuz.economy.model.config.CurrencyConfig;
 import lombok.RequiredArgsConstructor;
@@ -27,13 +29,14 @@ public final class EconomyImpl implements Economy {
 
     private final EconomyPlugin plugin;
 
-    private CurrencyConfig currencyConfig;
+    private volatile CurrencyConfig currencyConfig;
 
     // Registers the economy service
     public void register() {
         this.plugin.getServer().getServicesManager().register(Economy.class, this, this.plugin, ServicePriority.Highest);
 
         this.currencyConfig = this.plugin.getConfigController().getCurrencyConfig();
+        this.plugin.getConfigController().addReloadListener(snapshot -> this.currencyConfig = snapshot.currency());
     }
 
     @Override
@@ -58,12 +61,16 @@ public final class EconomyImpl implements Economy {
 
     @Override
     public int fractionalDigits(@NotNull String pluginName) {
-        return -1;
+        return Money.getScale();
     }
 
     @Override
     public @NotNull String format(@NotNull BigDecimal amount) {
-        return EconomyUtils.format(plugin, amount);
+        try {
+            return EconomyUtils.format(plugin, Money.of(amount));
+        } catch (final ArithmeticException e) {
+            return amount.toPlainString();
+        }
     }
 
     @Override
@@ -114,7 +121,9 @@ public final class EconomyImpl implements Economy {
 
     @Override
     public boolean createAccount(@NotNull UUID accountID, @NotNull String name, boolean player) {
-        return this.createAccount(accountID, name);
+        final AccountKind kind = player ? AccountKind.PLAYER : this.plugin.getAccountController().classify(accountID, name);
+        this.plugin.getAccountController().createAccount(accountID, name, kind);
+        return true;
     }
 
     @Override
@@ -124,7 +133,7 @@ public final class EconomyImpl implements Economy {
 
     @Override
     public boolean createAccount(@NotNull UUID accountID, @NotNull String name, @NotNull String worldName, boolean player) {
-        return this.createAccount(accountID, name);
+        return this.createAccount(accountID, name, player);
     }
 
     @Override
@@ -137,13 +146,13 @@ public final class EconomyImpl implements Economy {
 
     @Override
     public Optional<String> getAccountName(@NotNull UUID accountID) {
-        final Optional<Account> accountName = this.plugin.getAccountController().getAccount(accountID);
+        final Optional<Account> accountName = this.plugin.getAccountController().getOrLoadAccount(accountID);
         return accountName.map(Account::getName);
     }
 
     @Override
     public boolean hasAccount(@NotNull UUID accountID) {
-        return this.plugin.getAccountController().getAccount(accountID).isPresent();
+        return this.plugin.getAccountController().getOrLoadAccount(accountID).isPresent();
     }
 
     @Override
@@ -168,7 +177,7 @@ public final class EconomyImpl implements Economy {
 
     @Override
     public boolean accountSupportsCurrency(@NotNull String plugin, @NotNull UUID accountID, @NotNull String currency) {
-        return this.plugin.getAccountController().getAccount(accountID).isPresent()
+        return this.plugin.getAccountController().getOrLoadAccount(accountID).isPresent()
                 && currency.equals(this.currencyConfig.getName());
     }
 
@@ -179,10 +188,10 @@ public final class EconomyImpl implements Economy {
 
     @Override
     public @NotNull BigDecimal getBalance(@NotNull String pluginName, @NotNull UUID accountID) {
-        final Optional<Account> account = this.plugin.getAccountController().getAccount(accountID);
+        final Optional<Account> account = this.plugin.getAccountController().getOrLoadAccount(accountID);
 
         if (account.isPresent()) {
-            return account.get().getBalance();
+            return Money.toDecimal(account.get().getBalance());
         } else {
             return BigDecimal.ZERO;
         }
@@ -215,7 +224,13 @@ public final class EconomyImpl implements Economy {
 
     @Override
     public @NotNull EconomyResponse withdraw(@NotNull String pluginName, @NotNull UUID accountID, @NotNull BigDecimal amount) {
-        final Optional<Account> account = this.plugin.getAccountController().getAccount(accountID);
+        // Reject amounts that cannot be moved exactly rather than rounding them
+        final OptionalLong units = Money.ofExact(amount);
+        if (units.isEmpty() || units.getAsLong() < 0) {
+            return new EconomyResponse(amount, BigDecimal.ZERO, EconomyResponse.ResponseType.FAILURE, "invalid amount");
+        }
+
+        final Optional<Account> account = this.plugin.getAccountController().getOrLoadAccount(accountID);
 
         if (account.isEmpty()) {
             return new EconomyResponse(amount, BigDecimal.ZERO, EconomyResponse.ResponseType.FAILURE, "could not load account");
@@ -225,15 +240,12 @@ public final class EconomyImpl implements Economy {
             return new EconomyResponse(amount, BigDecimal.ZERO, EconomyResponse.ResponseType.FAILURE, "account is frozen");
         }
 
-        if (account.get().getBalance().compareTo(amount) < 0) {
-            return new EconomyResponse(amount, BigDecimal.ZERO, EconomyResponse.ResponseType.FAILURE, "insufficient balance");
-        }
-
-        final boolean success = account.get().subtractBalance(amount, Transactor.VAULT);
+        // Check and withdraw in one atomic update so concurrent withdrawals cannot overdraw
+        final boolean success = account.get().withdrawIfAtLeast(units.getAsLong(), Transactor.VAULT);
         if (success) {
-            return new EconomyResponse(amount, account.get().getBalance(), EconomyResponse.ResponseType.SUCCESS, "");
+            return new EconomyResponse(Money.toDecimal(units.getAsLong()), Money.toDecimal(account.get().getBalance()), EconomyResponse.ResponseType.SUCCESS, "");
         } else {
-            return new EconomyResponse(amount, BigDecimal.ZERO, EconomyResponse.ResponseType.FAILURE, "could not perform transaction");
+            return new EconomyResponse(amount, BigDecimal.ZERO, EconomyResponse.ResponseType.FAILURE, "insufficient balance");
         }
     }
 
@@ -249,7 +261,13 @@ public final class EconomyImpl implements Economy {
 
     @Override
     public @NotNull EconomyResponse deposit(@NotNull String pluginName, @NotNull UUID accountID, @NotNull BigDecimal amount) {
-        final Optional<Account> account = this.plugin.getAccountController().getAccount(accountID);
+        // Reject amounts that cannot be moved exactly rather than rounding them
+        final OptionalLong units = Money.ofExact(amount);
+        if (units.isEmpty() || units.getAsLong() < 0) {
+            return new EconomyResponse(amount, BigDecimal.ZERO, EconomyResponse.ResponseType.FAILURE, "invalid amount");
+        }
+
+        final Optional<Account> account = this.plugin.getAccountController().getOrLoadAccount(accountID);
 
         if (account.isEmpty()) {
             return new EconomyResponse(amount, BigDecimal.ZERO, EconomyResponse.ResponseType.FAILURE, "could not load account");
@@ -259,11 +277,11 @@ public final class EconomyImpl implements Economy {
             return new EconomyResponse(amount, BigDecimal.ZERO, EconomyResponse.ResponseType.FAILURE, "account is frozen");
         }
 
-        final boolean success = account.get().addBalance(amount, Transactor.VAULT);
+        final boolean success = account.get().depositCapped(units.getAsLong(), Money.maxBalance(), Transactor.VAULT);
         if (success) {
-            return new EconomyResponse(amount, account.get().getBalance(), EconomyResponse.ResponseType.SUCCESS, "");
+            return new EconomyResponse(Money.toDecimal(units.getAsLong()), Money.toDecimal(account.get().getBalance()), EconomyResponse.ResponseType.SUCCESS, "");
         } else {
-            return new EconomyResponse(amount, BigDecimal.ZERO, EconomyResponse.ResponseType.FAILURE, "could not perform transaction");
+            return new EconomyResponse(amount, BigDecimal.ZERO, EconomyResponse.ResponseType.FAILURE, "balance limit reached");
         }
     }
 
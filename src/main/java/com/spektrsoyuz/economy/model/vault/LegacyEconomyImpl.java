@@ -4,6 +4,7 @@ import com.spektrsoyuz.economy.Constants;
 import com.spektrsoyuz.economy.EconomyPlugin;
 import com.spektrsoyuz.economy.EconomyUtils;
 import com.spektrsoyuz.economy.model.account.Account;
+import com.spektrsoyuz.economy.model.account.Money;
 import com.spektrsoyuz.economy.model.account.Transactor;
 import com.spektrsoyuz.economy.model.config.CurrencyConfig;
 import lombok.RequiredArgsConstructor;
@@ -13,9 +14,9 @@ import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.ServicePriority;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 /**
  * Model class for a legacy Vault economy.
@@ -28,13 +29,14 @@ public final class LegacyEconomyImpl implements Economy {
 
     private final EconomyPlugin plugin;
 
-    private CurrencyConfig currencyConfig;
+    private volatile CurrencyConfig currencyConfig;
 
     // Registers the economy service
     public void register() {
         this.plugin.getServer().getServicesManager().register(Economy.class, this, this.plugin, ServicePriority.Highest);
 
         this.currencyConfig = this.plugin.getConfigController().getCurrencyConfig();
+        this.plugin.getConfigController().addReloadListener(snapshot -> this.currencyConfig = snapshot.currency());
     }
 
     @Override
@@ -54,12 +56,16 @@ public final class LegacyEconomyImpl implements Economy {
 
     @Override
     public int fractionalDigits() {
-        return 2;
+        return Money.getScale();
     }
 
     @Override
     public String format(double amount) {
-        return EconomyUtils.format(this.plugin, BigDecimal.valueOf(amount));
+        try {
+            return EconomyUtils.format(this.plugin, Money.of(amount));
+        } catch (final ArithmeticException e) {
+            return String.valueOf(amount);
+        }
     }
 
     @Override
@@ -74,7 +80,7 @@ public final class LegacyEconomyImpl implements Economy {
 
     @Override
     public boolean hasAccount(String playerName) {
-        return this.plugin.getAccountController().getAccount(playerName).isPresent();
+        return this.plugin.getAccountController().getOrLoadAccount(playerName).isPresent();
     }
 
     @Override
@@ -94,8 +100,8 @@ public final class LegacyEconomyImpl implements Economy {
 
     @Override
     public double getBalance(String playerName) {
-        final Optional<Account> account = this.plugin.getAccountController().getAccount(playerName);
-        return account.map(value -> value.getBalance().doubleValue()).orElse(0.0);
+        final Optional<Account> account = this.plugin.getAccountController().getOrLoadAccount(playerName);
+        return account.map(value -> Money.toDouble(value.getBalance())).orElse(0.0);
     }
 
     @Override
@@ -135,7 +141,13 @@ public final class LegacyEconomyImpl implements Economy {
 
     @Override
     public EconomyResponse withdrawPlayer(String playerName, double amount) {
-        final Optional<Account> account = this.plugin.getAccountController().getAccount(playerName);
+        // Reject amounts that cannot be moved exactly rather than rounding them
+        final OptionalLong units = Money.ofExact(amount);
+        if (units.isEmpty() || units.getAsLong() < 0) {
+            return new EconomyResponse(amount, 0, EconomyResponse.ResponseType.FAILURE, "invalid amount");
+        }
+
+        final Optional<Account> account = this.plugin.getAccountController().getOrLoadAccount(playerName);
 
         if (account.isEmpty()) {
             return new EconomyResponse(amount, 0, EconomyResponse.ResponseType.FAILURE, "could not load account");
@@ -145,15 +157,12 @@ public final class LegacyEconomyImpl implements Economy {
             return new EconomyResponse(amount, 0, EconomyResponse.ResponseType.FAILURE, "account is frozen");
         }
 
-        if (account.get().getBalance().doubleValue() < amount) {
-            return new EconomyResponse(amount, 0, EconomyResponse.ResponseType.FAILURE, "insufficient balance");
-        }
-
-        final boolean success = account.get().subtractBalance(BigDecimal.valueOf(amount), Transactor.VAULT);
+        // Check and withdraw in one atomic update so concurrent withdrawals cannot overdraw
+        final boolean success = account.get().withdrawIfAtLeast(units.getAsLong(), Transactor.VAULT);
         if (success) {
-            return new EconomyResponse(amount, account.get().getBalance().doubleValue(), EconomyResponse.ResponseType.SUCCESS, null);
+            return new EconomyResponse(Money.toDouble(units.getAsLong()), Money.toDouble(account.get().getBalance()), EconomyResponse.ResponseType.SUCCESS, null);
         } else {
-            return new EconomyResponse(amount, 0, EconomyResponse.ResponseType.FAILURE, "could not perform transaction");
+            return new EconomyResponse(amount, 0, EconomyResponse.ResponseType.FAILURE, "insufficient balance");
         }
     }
 
@@ -174,7 +183,13 @@ public final class LegacyEconomyImpl implements Economy {
 
     @Override
     public EconomyResponse depositPlayer(String playerName, double amount) {
-        final Optional<Account> account = this.plugin.getAccountController().getAccount(playerName);
+        // Reject amounts that cannot be moved exactly rather than rounding them
+        final OptionalLong units = Money.ofExact(amount);
+        if (units.isEmpty() || units.getAsLong() < 0) {
+            return new EconomyResponse(amount, 0, EconomyResponse.ResponseType.FAILURE, "invalid amount");
+        }
+
+        final Optional<Account> account = this.plugin.getAccountController().getOrLoadAccount(playerName);
 
         if (account.isEmpty()) {
             return new EconomyResponse(amount, 0, EconomyResponse.ResponseType.FAILURE, "could not load account");
@@ -184,11 +199,11 @@ public final class LegacyEconomyImpl implements Economy {
             return new EconomyResponse(amount, 0, EconomyResponse.ResponseType.FAILURE, "account is frozen");
         }
 
-        final boolean success = account.get().addBalance(BigDecimal.valueOf(amount), Transactor.VAULT);
+        final boolean success = account.get().depositCapped(units.getAsLong(), Money.maxBalance(), Transactor.VAULT);
         if (success) {
-            return new EconomyResponse(amount, account.get().getBalance().doubleValue(), EconomyResponse.ResponseType.SUCCESS, null);
+            return new EconomyResponse(Money.toDouble(units.getAsLong()), Money.toDouble(account.get().getBalance()), EconomyResponse.ResponseType.SUCCESS, null);
         } else {
-            return new EconomyResponse(amount, 0, EconomyResponse.ResponseType.FAILURE, "could not perform transaction");
+            return new EconomyResponse(amount, 0, EconomyResponse.ResponseType.FAILURE, "balance limit reached");
         }
     }
 
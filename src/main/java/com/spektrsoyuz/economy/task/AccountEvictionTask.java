@@ -0,0 +1,25 @@
+package com.spektrsoyuz.economy.task;
+
+import com.spektrsoyuz.economy.EconomyPlugin;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Asynchronous task for evicting idle accounts in lazy residency mode.
+ *
+ * @since 1.1.0
+ */
+@RequiredArgsConstructor
+public final class AccountEvictionTask implements Runnable {
+
+    private final EconomyPlugin plugin;
+
+    @Override
+    public void run() {
+        final int evicted = this.plugin.getAccountController().evictIdleAccounts();
+
+        if (evicted > 0 && this.plugin.getConfigController().getOptionsConfig().isDebug()) {
+            this.plugin.getComponentLogger().warn("Evicted {} idle accounts from the cache", evicted);
+        }
+    }
+
+}
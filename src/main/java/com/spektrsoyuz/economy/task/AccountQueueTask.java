@@ -1,14 +1,20 @@
 package com.spektrsoyuz.economy.task;
 
 import com.spektrsoyuz.economy.EconomyPlugin;
+import com.spektrsoyuz.economy.controller.DataController;
+import com.spektrsoyuz.economy.controller.JournalController;
 import com.spektrsoyuz.economy.model.CurrencyType;
 import com.spektrsoyuz.economy.model.account.Account;
 import com.spektrsoyuz.economy.model.config.CurrencyConfig;
+import com.spektrsoyuz.economy.model.data.FlushStats;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.bukkit.entity.Player;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Asynchronous task for saving accounts.
@@ -19,11 +25,16 @@ import java.util.concurrent.ConcurrentHashMap;
 public final class AccountQueueTask implements Runnable {
 
     private final EconomyPlugin plugin;
-    private final Set<UUID> queue = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Map<UUID, Account> queue = new ConcurrentHashMap<>();
+
+    @Getter
+    private volatile FlushStats lastFlush;
+    private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
 
     // Adds an account to the queue
     public void queue(final Account account) {
-        this.queue.add(account.getId());
+        this.queue.put(account.getId(), account);
+        this.plugin.getAccountController().rankAccount(account);
 
         // Sync XP bar
         final Player player = this.plugin.getServer().getPlayer(account.getId());
@@ -42,33 +53,197 @@ public final class AccountQueueTask implements Runnable {
         }
     }
 
+    // Drops a deleted account's pending changes
+    public void forget(final UUID id) {
+        this.queue.remove(id);
+    }
+
+    // Checks whether an account has changes waiting to be flushed
+    public boolean isQueued(final UUID id) {
+        return this.queue.containsKey(id);
+    }
+
     @Override
-    public void run() {
-        if (this.queue.isEmpty()) return;
-
-        // Empty the queue
-        UUID[] toProcess;
-        synchronized (this.queue) {
-            toProcess = this.queue.toArray(new UUID[0]);
-            this.queue.clear();
+    public synchronized void run() {
+        // Skip if the previous flush is still running
+        if (!this.pending.isDone()) return;
+
+        this.pending = this.flush();
+    }
+
+    // Waits for the running flush, then flushes whatever is left
+    public synchronized void shutdown() {
+        this.pending.join();
+        this.pending = this.flush();
+        this.pending.join();
+    }
+
+    // Saves all dirty accounts to the database
+    private CompletableFuture<Void> flush() {
+        final JournalController journal = this.plugin.getJournalController();
+
+        // Every change journaled up to this segment has already marked its account dirty
+        final long segment = journal.getLastSealed();
+
+        // Drain the queue, keeping each dirty account even if it was evicted since
+        final Map<UUID, Account> accounts = new HashMap<>();
+        final Iterator<Map.Entry<UUID, Account>> iterator = this.queue.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            final Map.Entry<UUID, Account> entry = iterator.next();
+            iterator.remove();
+
+            accounts.put(entry.getKey(), entry.getValue());
+        }
+
+        if (accounts.isEmpty()) {
+            journal.acknowledgeAccounts(segment);
+            return CompletableFuture.completedFuture(null);
         }
 
-        // Save accounts
-        for (final UUID uuid : toProcess) {
-            this.plugin.getAccountController().getAccount(uuid).ifPresent(account -> {
-                try {
-                    final Account.Memento memento = account.createMemento();
-                    this.plugin.getDataController().saveAccount(memento);
+        final Set<UUID> failed = ConcurrentHashMap.newKeySet();
+        final CompletableFuture<FlushStats> future = switch (this.plugin.getConfigController().getStorageConfig().getPersistenceMode()) {
+            case SNAPSHOT -> this.saveSnapshots(accounts, failed);
+            case DELTA -> this.saveDeltas(accounts, failed);
+        };
+
+        return future.thenAccept(stats -> {
+            this.lastFlush = stats;
+
+            // Release the journal once every balance is stored
+            if (failed.isEmpty()) {
+                journal.acknowledgeAccounts(segment);
+            }
+
+            if (this.plugin.getConfigController().getOptionsConfig().isDebug()) {
+                this.plugin.getComponentLogger().warn("Saved {} account rows to the database in {} chunks ({} failed) in {}ms",
+                        stats.rows(),
+                        stats.chunks(),
+                        stats.failedChunks(),
+                        stats.elapsed()
+                );
+            }
+        });
+    }
+
+    // Overwrites the full row of each account
+    private CompletableFuture<FlushStats> saveSnapshots(final Map<UUID, Account> accounts, final Set<UUID> failed) {
+        final List<Account.Memento> mementos = new ArrayList<>();
+
+        for (final Account account : accounts.values()) {
+            // A deleted account's row must not be written back
+            if (account.isDeleted()) continue;
 
-                    if (this.plugin.getConfigController().getOptionsConfig().isDebug()) {
-                        this.plugin.getComponentLogger().warn("Saved account '{}:{}' to the database",
-                                memento.id(), memento.name());
+            account.takeMetadataDirty();
+            mementos.add(account.createMemento());
+        }
+
+        return this.plugin.getDataController().saveAccounts(mementos, chunk ->
+                this.requeue(chunk, Account.Memento::id, accounts, failed)
+        ).thenApply(stats -> {
+            this.markStored(accounts, mementos, failed);
+            return stats;
+        });
+    }
+
+    // Inserts new accounts, adds balance deltas and rewrites metadata only where it changed
+    private CompletableFuture<FlushStats> saveDeltas(final Map<UUID, Account> accounts, final Set<UUID> failed) {
+        final List<Account.Memento> inserts = new ArrayList<>();
+        final List<Account.Delta> deltas = new ArrayList<>();
+        final List<Account.Memento> metadata = new ArrayList<>();
+
+        for (final Account account : accounts.values()) {
+            // A deleted account's row must not be written back
+            if (account.isDeleted()) continue;
+
+            if (!account.isStored()) {
+                account.takeMetadataDirty();
+                inserts.add(account.createMemento());
+                continue;
+            }
+
+            final Account.Delta delta = account.createDelta();
+            if (!delta.isZero()) {
+                deltas.add(delta);
+            }
+
+            if (account.takeMetadataDirty()) {
+                metadata.add(account.createMemento());
+            }
+        }
+
+        final DataController dataController = this.plugin.getDataController();
+        final FlushStats empty = new FlushStats(0, 0, 0, 0);
+
+        final CompletableFuture<FlushStats> insertFuture = inserts.isEmpty()
+                ? CompletableFuture.completedFuture(empty)
+                : dataController.saveAccounts(inserts, chunk -> this.requeue(chunk, Account.Memento::id, accounts, failed));
+
+        final CompletableFuture<FlushStats> deltaFuture = deltas.isEmpty()
+                ? CompletableFuture.completedFuture(empty)
+                : dataController.saveBalanceDeltas(
+                        deltas,
+                        delta -> this.recreate(accounts.get(delta.id()), delta),
+                        chunk -> this.requeue(chunk, Account.Delta::id, accounts, failed)
+                );
+
+        final CompletableFuture<FlushStats> metadataFuture = metadata.isEmpty()
+                ? CompletableFuture.completedFuture(empty)
+                : dataController.saveAccountMetadata(metadata, chunk -> {
+                    for (final Account.Memento memento : chunk) {
+                        final Account account = accounts.get(memento.id());
+                        if (account != null) account.markMetadataDirty();
+                    }
+                    this.requeue(chunk, Account.Memento::id, accounts, failed);
+                });
+
+        return insertFuture.thenCombine(deltaFuture, FlushStats::plus)
+                .thenCombine(metadataFuture, FlushStats::plus)
+                .thenApply(stats -> {
+                    this.markStored(accounts, inserts, failed);
+
+                    // A failed delta is simply recomputed from the stored balance next flush
+                    for (final Account.Delta delta : deltas) {
+                        if (failed.contains(delta.id())) continue;
+
+                        final Account account = accounts.get(delta.id());
+                        if (account != null) account.applyDelta(delta);
                     }
-                } catch (final Exception e) {
-                    this.plugin.getComponentLogger().error("Failed to save account '{}'", uuid, e);
-                    this.queue.add(uuid);
-                }
-            });
+
+                    return stats;
+                });
+    }
+
+    // Gets the full row for a delta whose row is missing, at the balance the delta brings it to
+    private Account.Memento recreate(final Account account, final Account.Delta delta) {
+        if (account == null || account.isDeleted()) return null;
+        return account.createMemento().withBalance(delta.balance());
+    }
+
+    // Records the balances of the rows that were written in full
+    private void markStored(final Map<UUID, Account> accounts, final List<Account.Memento> mementos, final Set<UUID> failed) {
+        for (final Account.Memento memento : mementos) {
+            if (failed.contains(memento.id())) continue;
+
+            final Account account = accounts.get(memento.id());
+            if (account != null) account.markStored(memento.balance());
+        }
+    }
+
+    // Re-queues the accounts of a failed chunk, dropping any deleted since it was drained
+    private <T> void requeue(
+            final List<T> chunk,
+            final Function<T, UUID> id,
+            final Map<UUID, Account> accounts,
+            final Set<UUID> failed
+    ) {
+        for (final T record : chunk) {
+            final UUID uuid = id.apply(record);
+            final Account account = accounts.get(uuid);
+            if (account == null || account.isDeleted()) continue;
+
+            failed.add(uuid);
+            this.queue.putIfAbsent(uuid, account);
         }
     }
 
@@ -1,12 +1,13 @@
 package com.spektrsoyuz.economy.task;
 
 import com.spektrsoyuz.economy.EconomyPlugin;
+import com.spektrsoyuz.economy.controller.AccountController;
 import com.spektrsoyuz.economy.model.account.Account;
+import com.spektrsoyuz.economy.model.account.AccountKind;
+import com.spektrsoyuz.economy.model.account.Leaderboard;
 import lombok.RequiredArgsConstructor;
 
-import java.math.BigDecimal;
-import java.util.Comparator;
-import java.util.List;
+import java.util.Optional;
 
 /**
  * Asynchronous task for syncing cached account data.
@@ -16,28 +17,53 @@ import java.util.List;
 @RequiredArgsConstructor
 public final class AccountSyncTask implements Runnable {
 
+    // Number of rows read in lazy mode, leaving room for filtered accounts
+    private static final int TOP_ACCOUNTS_QUERY_LIMIT = 50;
+
     private final EconomyPlugin plugin;
 
     @Override
     public void run() {
-        final List<Account> accounts = this.plugin.getAccountController().getAccounts()
-                .values()
-                .stream()
-                .filter(account -> account.getBalance().compareTo(BigDecimal.ZERO) != 0)
-                .filter(account -> this.plugin.getServer().getOfflinePlayer(account.getId()).hasPlayedBefore()
-                        || this.plugin.getServer().getPlayer(account.getId()) != null)
-                .sorted(
-                        // Primary sort by balance
-                        Comparator.comparing(Account::getBalance).reversed()
-                                // Secondary sort by name
-                                .thenComparing(Account::getName)
-                )
-                .toList();
-
-        final int size = Math.min(accounts.size(), 10);
-
-        // Update top 10 accounts
-        this.plugin.getAccountController().updateTopAccounts(accounts.subList(0, size));
+        final AccountController accountController = this.plugin.getAccountController();
+
+        // In lazy mode most accounts are not in memory, so rank the top rows from the database
+        if (accountController.isLazy()) {
+            this.plugin.getDataController().queryTopAccounts(TOP_ACCOUNTS_QUERY_LIMIT).thenAccept(mementos -> {
+                int players = 0;
+
+                for (final Account.Memento memento : mementos) {
+                    // Unclassified rows are loaded so their kind is worked out and stored
+                    if (memento.kind() == null) {
+                        accountController.loadAccount(memento.id()).thenAccept(account ->
+                                account.ifPresent(accountController::rankAccount));
+                        continue;
+                    }
+
+                    if (memento.kind() == AccountKind.PLAYER) players++;
+                    accountController.rankAccount(Optional.ofNullable(accountController.getAccounts().get(memento.id()))
+                            .orElseGet(() -> memento.toAccount(this.plugin)));
+                }
+
+                // Every player above the lowest row read is on the leaderboard, those below may not be
+                accountController.getLeaderboard().setComplete(mementos.size() < TOP_ACCOUNTS_QUERY_LIMIT
+                        ? Integer.MAX_VALUE
+                        : players);
+                accountController.getLeaderboard().flush();
+            });
+            return;
+        }
+
+        // Account changes keep the leaderboard current, so it only needs filling once
+        final Leaderboard leaderboard = accountController.getLeaderboard();
+        if (!leaderboard.isSeeded()) {
+            leaderboard.rebuild(accountController.getAccounts().values()
+                    .stream()
+                    .filter(accountController::isRanked)
+                    .toList());
+        }
+
+        // Place the changes noted since the last read here rather than in a command on the tick thread
+        leaderboard.flush();
     }
 
 }
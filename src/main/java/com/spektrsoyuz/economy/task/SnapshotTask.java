@@ -0,0 +1,70 @@
+package com.spektrsoyuz.economy.task;
+
+import com.spektrsoyuz.economy.Constants;
+import com.spektrsoyuz.economy.EconomyPlugin;
+import com.spektrsoyuz.economy.model.account.Account;
+import com.spektrsoyuz.economy.model.data.AccountSnapshot;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous task for writing the account cache snapshot.
+ *
+ * @since 1.1.0
+ */
+@RequiredArgsConstructor
+public final class SnapshotTask implements Runnable {
+
+    // Rows written this many seconds before the mark are re-read on load,
+    // covering flushes that committed while the snapshot was being taken
+    private static final long MARK_SAFETY_MARGIN = 60;
+
+    private final EconomyPlugin plugin;
+
+    @Override
+    public synchronized void run() {
+        // Never snapshot a cache that failed to load
+        if (!this.plugin.getAccountController().isInitialized()) return;
+        if (this.plugin.getAccountController().isLazy()) return;
+        if (!this.plugin.getConfigController().getStorageConfig().getSnapshot().isEnabled()) return;
+
+        final long start = System.nanoTime();
+
+        // Take the mark before reading the cache, so later writes land after it
+        final long mark = this.plugin.getDataController().queryDatabaseTime().join();
+        if (mark < 0) return;
+
+        final Collection<Account> accounts = this.plugin.getAccountController().getAccounts().values();
+        final List<Account.Memento> mementos = new ArrayList<>(accounts.size());
+
+        for (final Account account : accounts) {
+            // Unsaved balances are left to the journal, so store what the database holds
+            final Account.Memento memento = account.createStoredMemento();
+            if (memento != null) mementos.add(memento);
+        }
+
+        try {
+            AccountSnapshot.write(
+                    this.plugin.getDataPath().resolve(Constants.SNAPSHOT_FILE),
+                    mark - MARK_SAFETY_MARGIN,
+                    mementos
+            );
+        } catch (final IOException e) {
+            this.plugin.getComponentLogger().error("Error writing account snapshot", e);
+            return;
+        }
+
+        if (this.plugin.getConfigController().getOptionsConfig().isDebug()) {
+            this.plugin.getComponentLogger().warn("Wrote snapshot of {} accounts in {}ms",
+                    mementos.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+            );
+        }
+    }
+
+}
@@ -1,11 +1,19 @@
 package com.spektrsoyuz.economy.task;
 
 import com.spektrsoyuz.economy.EconomyPlugin;
+import com.spektrsoyuz.economy.controller.JournalController;
 import com.spektrsoyuz.economy.model.account.Transaction;
+import com.spektrsoyuz.economy.model.account.Transfer;
+import com.spektrsoyuz.economy.model.data.FlushStats;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
 
 /**
  * Asynchronous task for saving transactions.
@@ -18,9 +26,13 @@ public final class TransactionQueueTask implements Runnable {
     private final EconomyPlugin plugin;
     private final Queue<Transaction> queue = new ConcurrentLinkedQueue<>();
 
-    // Adds a transaction to the queue
-    public void queue(final Transaction transaction) {
-        this.queue.add(transaction);
+    @Getter
+    private volatile FlushStats lastFlush;
+    private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+
+    // Journals a transaction and adds it to the queue
+    public void queue(final Transaction transaction, final LongSupplier balance) {
+        this.plugin.getJournalController().append(transaction, balance, () -> this.queue.add(transaction));
 
         if (this.plugin.getConfigController().getOptionsConfig().isDebug()) {
             this.plugin.getComponentLogger().debug("Added transaction for account '{}:{}' to the queue",
@@ -30,28 +42,85 @@ public final class TransactionQueueTask implements Runnable {
         }
     }
 
-    @Override
-    public void run() {
-        // Save transactions to database
-        Transaction transaction;
-
-        while ((transaction = queue.poll()) != null) {
-            try {
-                this.plugin.getDataController().saveTransaction(transaction);
-
-                if (this.plugin.getConfigController().getOptionsConfig().isDebug()) {
-                    this.plugin.getComponentLogger().warn("Saved transaction for account '{}:{}' to the database",
-                            transaction.accountId(),
-                            transaction.accountName()
-                    );
+    // Journals both legs of a transfer as one record and adds them to the queue
+    public void queueTransfer(final Transfer transfer) {
+        final Transaction debit = transfer.debit();
+        final Transaction credit = transfer.credit();
+
+        this.plugin.getJournalController().appendTransfer(
+                debit,
+                transfer.from()::getBalance,
+                credit,
+                transfer.to()::getBalance,
+                () -> {
+                    this.queue.add(debit);
+                    this.queue.add(credit);
                 }
-            } catch (final Exception e) {
-                this.plugin.getComponentLogger().error("Failed to save transaction", e);
-            }
+        );
+
+        if (this.plugin.getConfigController().getOptionsConfig().isDebug()) {
+            this.plugin.getComponentLogger().debug("Added transfer '{}' from '{}' to '{}' to the queue",
+                    transfer.id(),
+                    debit.accountName(),
+                    credit.accountName()
+            );
         }
+    }
+
+    // Adds a transaction replayed from the journal to the queue
+    public void requeue(final Transaction transaction) {
+        this.queue.add(transaction);
+    }
+
+    @Override
+    public synchronized void run() {
+        // Skip if the previous flush is still running
+        if (!this.pending.isDone()) return;
 
-        // Clear the queue
-        this.queue.clear();
+        this.pending = this.flush();
+    }
+
+    // Waits for the running flush, then flushes whatever is left
+    public synchronized void shutdown() {
+        this.pending.join();
+        this.pending = this.flush();
+        this.pending.join();
+    }
+
+    // Saves all queued transactions to the database
+    private CompletableFuture<Void> flush() {
+        if (this.queue.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        final JournalController journal = this.plugin.getJournalController();
+        final List<Transaction> transactions = new ArrayList<>();
+
+        // Seal the journal segment and drain the queue
+        final long segment = journal.seal(() -> {
+            Transaction transaction;
+
+            while ((transaction = this.queue.poll()) != null) {
+                transactions.add(transaction);
+            }
+        });
+
+        // Save transactions to database, re-queueing any failed chunks
+        return this.plugin.getDataController().saveTransactions(transactions, this.queue::addAll).thenAccept(stats -> {
+            this.lastFlush = stats;
+
+            // Release the journal once every transaction is stored
+            if (stats.rows() == transactions.size()) {
+                journal.acknowledgeTransactions(segment);
+            }
+
+            if (this.plugin.getConfigController().getOptionsConfig().isDebug()) {
+                this.plugin.getComponentLogger().warn("Saved {} transactions to the database in {} chunks ({} failed) in {}ms",
+                        stats.rows(),
+                        stats.chunks(),
+                        stats.failedChunks(),
+                        stats.elapsed()
+                );
+            }
+        });
     }
 
 }
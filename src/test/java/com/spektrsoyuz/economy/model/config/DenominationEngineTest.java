@@ -0,0 +1,154 @@
+package com.spektrsoyuz.economy.model.config;
+
+import com.spektrsoyuz.economy.model.InventoryCapacity;
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link DenominationEngine}, checking capacity-aware results
+ * against every combination that fits.
+ *
+ * @since 1.1.0
+ */
+class DenominationEngineTest {
+
+    private static final Material[] MATERIALS = {
+            Material.GOLD_NUGGET, Material.GOLD_INGOT, Material.GOLD_BLOCK, Material.DIAMOND
+    };
+
+    private static final int[] STACK_SIZES = {1, 2, 3, 5};
+
+    private static final int MAX_AMOUNT = 200;
+
+    @Test
+    void fitsSmallerItemsWhenLargerOnesTakeMoreSlots() {
+        final List<ItemValueTable.Denomination> denominations = sorted(List.of(
+                new ItemValueTable.Denomination(Material.GOLD_INGOT, 1, 64),
+                new ItemValueTable.Denomination(Material.GOLD_BLOCK, 9, 64)
+        ));
+        final DenominationEngine engine = new DenominationEngine(denominations);
+        final InventoryCapacity capacity = InventoryCapacity.of(denominations, new int[2], 1);
+
+        // A block and an ingot take two slots, ten ingots take one; blocks sort first
+        final DenominationEngine.Combination fit = engine.fit(10, capacity);
+        assertNotNull(fit);
+        assertArrayEquals(new int[]{0, 10}, fit.counts());
+        assertEquals(10, engine.fill(10, capacity).amount());
+    }
+
+    @Test
+    void matchesExhaustiveSearch() {
+        final Random random = new Random(1);
+
+        for (int round = 0; round < 300; round++) {
+            final List<ItemValueTable.Denomination> denominations = randomDenominations(random);
+            final int size = denominations.size();
+            final int emptySlots = random.nextInt(4);
+
+            final int[] headroom = new int[size];
+            for (int i = 0; i < size; i++) {
+                headroom[i] = random.nextInt(3) == 0 ? random.nextInt(4) : 0;
+            }
+
+            final DenominationEngine engine = new DenominationEngine(denominations);
+            final InventoryCapacity capacity = InventoryCapacity.of(denominations, headroom, emptySlots);
+            final Map<Integer, Integer> fewest = exhaustive(denominations, headroom, emptySlots);
+            final String context = denominations + " headroom=" + Arrays.toString(headroom) + " empty=" + emptySlots;
+
+            int largest = 0;
+            for (int amount = 0; amount <= MAX_AMOUNT; amount++) {
+                final Integer expected = fewest.get(amount);
+                if (expected != null) largest = amount;
+
+                final DenominationEngine.Combination fit = engine.fit(amount, capacity);
+                if (expected == null) {
+                    assertNull(fit, context + " amount=" + amount);
+                } else {
+                    assertNotNull(fit, context + " amount=" + amount);
+                    assertEquals(amount, value(fit), context + " amount=" + amount);
+                    assertEquals(expected, slots(fit, headroom), context + " amount=" + amount);
+                    assertTrue(fit.fits(capacity), context + " amount=" + amount);
+                }
+
+                final DenominationEngine.Combination fill = engine.fill(amount, capacity);
+                assertEquals(largest, fill.amount(), context + " max=" + amount);
+                assertEquals(largest, value(fill), context + " max=" + amount);
+                assertTrue(fill.fits(capacity), context + " max=" + amount);
+            }
+        }
+    }
+
+    // Picks up to four denominations with distinct values and small stacks
+    private static List<ItemValueTable.Denomination> randomDenominations(final Random random) {
+        final int size = 1 + random.nextInt(MATERIALS.length);
+        final Set<Integer> values = new HashSet<>();
+        final List<ItemValueTable.Denomination> denominations = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            int value;
+            do {
+                value = 1 + random.nextInt(20);
+            } while (!values.add(value));
+
+            denominations.add(new ItemValueTable.Denomination(MATERIALS[i], value, STACK_SIZES[random.nextInt(STACK_SIZES.length)]));
+        }
+
+        return sorted(denominations);
+    }
+
+    // Orders denominations the way the value table does
+    private static List<ItemValueTable.Denomination> sorted(final List<ItemValueTable.Denomination> denominations) {
+        final List<ItemValueTable.Denomination> sorted = new ArrayList<>(denominations);
+        sorted.sort(Comparator.comparingLong(ItemValueTable.Denomination::stackValue).reversed());
+        return sorted;
+    }
+
+    // Gets the fewest slots making each amount, over every combination that fits
+    private static Map<Integer, Integer> exhaustive(final List<ItemValueTable.Denomination> denominations,
+                                                    final int[] headroom, final int emptySlots) {
+        final int size = denominations.size();
+        final int[] limits = new int[size];
+        for (int i = 0; i < size; i++) {
+            limits[i] = headroom[i] + emptySlots * denominations.get(i).maxStackSize();
+        }
+
+        final Map<Integer, Integer> fewest = new HashMap<>();
+        final int[] counts = new int[size];
+
+        while (true) {
+            final DenominationEngine.Combination combination = new DenominationEngine.Combination(0, denominations, counts);
+            final int slots = slots(combination, headroom);
+            if (slots <= emptySlots) fewest.merge(value(combination), slots, Math::min);
+
+            int i = 0;
+            while (i < size && counts[i] == limits[i]) counts[i++] = 0;
+            if (i == size) return fewest;
+            counts[i]++;
+        }
+    }
+
+    // Gets the value of the items in a combination
+    private static int value(final DenominationEngine.Combination combination) {
+        int value = 0;
+        for (int i = 0; i < combination.counts().length; i++) {
+            value += combination.counts()[i] * combination.denominations().get(i).value();
+        }
+        return value;
+    }
+
+    // Gets the empty slots a combination takes after topping up partial stacks
+    private static int slots(final DenominationEngine.Combination combination, final int[] headroom) {
+        int slots = 0;
+        for (int i = 0; i < combination.counts().length; i++) {
+            final int overflow = combination.counts()[i] - headroom[i];
+            final int stack = combination.denominations().get(i).maxStackSize();
+            if (overflow > 0) slots += (overflow + stack - 1) / stack;
+        }
+        return slots;
+    }
+
+}